@@ -188,8 +188,8 @@ public class SkillHudRenderer implements HudElement {
                 String skillText = String.format("⭐ %s Lvl 99 [XP: %,d]", skillDisplayName, skill.xp());
                 lineWidth = font.width(skillText);
             } else {
-                int xpForCurrentLevel = XPManager.getExperienceForLevel(skill.level());
-                int xpToNextLevel = XPManager.getExperienceForLevel(skill.level() + 1) - xpForCurrentLevel;
+                int xpForCurrentLevel = XPManager.getExperienceForLevel(skillEnum, skill.level());
+                int xpToNextLevel = XPManager.getExperienceForLevel(skillEnum, skill.level() + 1) - xpForCurrentLevel;
                 int progressToNextLevel = skill.xp() - xpForCurrentLevel;
                 String skillText = String.format("%s Lvl %d [%,d/%,d]",
                         skillDisplayName, skill.level(), progressToNextLevel, xpToNextLevel);
@@ -317,7 +317,7 @@ public class SkillHudRenderer implements HudElement {
             String skillName = skillEnum.getId();
             DatabaseManager.SkillData skill = skills.getOrDefault(skillName, new DatabaseManager.SkillData(0, 1));
 
-            currentY = renderSkillLine(context, x + PADDING, currentY, skill, skillEnum.getDisplayName());
+            currentY = renderSkillLine(context, x + PADDING, currentY, skill, skillEnum);
             currentY += 1;
         }
 
@@ -330,15 +330,16 @@ public class SkillHudRenderer implements HudElement {
         context.text(font, totalText, x + PADDING, currentY, LEVEL_COLOR, false);
     }
 
-    private int renderSkillLine(GuiGraphicsExtractor context, int x, int y, DatabaseManager.SkillData skill, String skillDisplayName) {
+    private int renderSkillLine(GuiGraphicsExtractor context, int x, int y, DatabaseManager.SkillData skill, Skills skillEnum) {
         Font font = Minecraft.getInstance().font;
+        String skillDisplayName = skillEnum.getDisplayName();
 
         if (skill.level() == XPManager.getMaxLevel()) {
             String skillText = String.format("⭐ %s Lvl 99 [XP: %,d]", skillDisplayName, skill.xp());
             context.text(font, skillText, x, y, 0xFFFFD700, false);
         } else {
-            int xpForCurrentLevel = XPManager.getExperienceForLevel(skill.level());
-            int xpToNextLevel = XPManager.getExperienceForLevel(skill.level() + 1) - xpForCurrentLevel;
+            int xpForCurrentLevel = XPManager.getExperienceForLevel(skillEnum, skill.level());
+            int xpToNextLevel = XPManager.getExperienceForLevel(skillEnum, skill.level() + 1) - xpForCurrentLevel;
             int progressToNextLevel = skill.xp() - xpForCurrentLevel;
 
             String skillText = String.format("%s Lvl %d", skillDisplayName, skill.level());
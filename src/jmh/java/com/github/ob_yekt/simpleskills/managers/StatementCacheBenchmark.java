@@ -0,0 +1,147 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per call of preparing a statement for every query versus the {@link StatementCache} that
+ * {@link SqliteSkillStore} keeps per connection, using the store's own skill SQL on a temp-file database with
+ * the compact skill table from {@link SchemaMigrations}. Saves run inside one open transaction per iteration
+ * so the numbers show statement overhead rather than fsyncs.
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementCacheBenchmark {
+    private static final int PLAYERS = 1000;
+    private static final int SKILLS = 15;
+
+    private Path directory;
+    private Connection connection;
+    private final StatementCache statementCache = new StatementCache();
+    private byte[][] playerIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void openDatabase() throws IOException, SQLException {
+        directory = Files.createTempDirectory("simpleskills-bench");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + directory.resolve("bench.db"));
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute(SchemaMigrations.CREATE_SKILLS_TABLE_SQL);
+        }
+        playerIds = new byte[PLAYERS][];
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(SqliteSkillStore.SAVE_SKILL_SQL)) {
+            for (int i = 0; i < PLAYERS; i++) {
+                playerIds[i] = PlayerIds.playerId(UUID.randomUUID());
+                for (int skill = 0; skill < SKILLS; skill++) {
+                    insert.setBytes(1, playerIds[i]);
+                    insert.setInt(2, skill);
+                    insert.setInt(3, i * skill);
+                    insert.setInt(4, 1 + skill);
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+    }
+
+    @Setup(Level.Iteration)
+    public void beginTransaction() throws SQLException {
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void commitTransaction() throws SQLException {
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() throws IOException, SQLException {
+        statementCache.clear();
+        connection.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private byte[] nextPlayer() {
+        next = (next + 1) % PLAYERS;
+        return playerIds[next];
+    }
+
+    private static void readSkills(PreparedStatement statement, byte[] playerId, Blackhole blackhole) throws SQLException {
+        statement.setBytes(1, playerId);
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getInt(1) + rs.getInt(2) + rs.getInt(3));
+            }
+        }
+    }
+
+    private void saveSkill(PreparedStatement statement) throws SQLException {
+        statement.setBytes(1, nextPlayer());
+        statement.setInt(2, next % SKILLS);
+        statement.setInt(3, next);
+        statement.setInt(4, 2);
+        statement.executeUpdate();
+    }
+
+    @Benchmark
+    public void loadSkillsFresh(Blackhole blackhole) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SqliteSkillStore.SELECT_SKILLS_SQL)) {
+            readSkills(statement, nextPlayer(), blackhole);
+        }
+    }
+
+    @Benchmark
+    public void loadSkillsCached(Blackhole blackhole) throws SQLException {
+        readSkills(statementCache.prepare(connection, SqliteSkillStore.SELECT_SKILLS_SQL), nextPlayer(), blackhole);
+    }
+
+    @Benchmark
+    public void saveSkillFresh() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SqliteSkillStore.SAVE_SKILL_SQL)) {
+            saveSkill(statement);
+        }
+    }
+
+    @Benchmark
+    public void saveSkillCached() throws SQLException {
+        saveSkill(statementCache.prepare(connection, SqliteSkillStore.SAVE_SKILL_SQL));
+    }
+}
@@ -22,11 +22,13 @@ public class Simpleskills implements ModInitializer {
 		LOGGER.info("Initializing SimpleSkills mod...");
 
 		SimpleskillsCommands.registerCommands();
+		ProfilePrefetcher.init();
 		IronmanManager.init();
 		AttributeManager.registerPlayerEvents();
 		LoreManager.initialize();
 		ConfigManager.initialize();
 		EventHandlers.registerAll();
+		XpGrantBus.init();
 
 		// Initialize database and setup server lifecycle hooks
 		DatabaseManager db = DatabaseManager.getInstance();
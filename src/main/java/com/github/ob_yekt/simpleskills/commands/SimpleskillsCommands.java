@@ -4,8 +4,10 @@ import com.github.ob_yekt.simpleskills.Simpleskills;
 import com.github.ob_yekt.simpleskills.Skills;
 import com.github.ob_yekt.simpleskills.managers.ConfigManager;
 import com.github.ob_yekt.simpleskills.managers.DatabaseManager;
+import com.github.ob_yekt.simpleskills.managers.DatabaseWriteStats;
 import com.github.ob_yekt.simpleskills.managers.AttributeManager;
 import com.github.ob_yekt.simpleskills.managers.IronmanManager;
+import com.github.ob_yekt.simpleskills.managers.SkillStore;
 import com.github.ob_yekt.simpleskills.managers.XPManager;
 import com.github.ob_yekt.simpleskills.ui.SkillTabMenu;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
@@ -24,9 +26,16 @@ import net.minecraft.server.permissions.Permission;
 import net.minecraft.server.permissions.PermissionLevel;
 import net.minecraft.sounds.SoundEvents;
 import net.minecraft.sounds.SoundSource;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -62,6 +71,28 @@ public class SimpleskillsCommands {
                                             context.getSource().sendSuccess(() -> Component.literal("§6[simpleskills]§f Configs reloaded."), true);
                                             return 1;
                                         }))
+                                .then(Commands.literal("dbstats")
+                                        .requires(source -> source.permissions().hasPermission(new Permission.HasCommandLevel(PermissionLevel.MODERATORS)))
+                                        .executes(SimpleskillsCommands::showDatabaseStats))
+                                .then(Commands.literal("xphistory")
+                                        .requires(source -> source.permissions().hasPermission(new Permission.HasCommandLevel(PermissionLevel.MODERATORS)))
+                                        .then(Commands.argument("targets", StringArgumentType.string())
+                                                .suggests((context, builder) -> SharedSuggestionProvider.suggest(getOnlinePlayerNames(context), builder))
+                                                .then(Commands.argument("hours", IntegerArgumentType.integer(1, 24 * 365))
+                                                        .executes(SimpleskillsCommands::showXpHistory))
+                                                .executes(SimpleskillsCommands::showXpHistory)))
+                                .then(Commands.literal("backup")
+                                        .requires(source -> source.permissions().hasPermission(new Permission.HasCommandLevel(PermissionLevel.MODERATORS)))
+                                        .executes(SimpleskillsCommands::backupDatabase))
+                                .then(Commands.literal("export")
+                                        .requires(source -> source.permissions().hasPermission(new Permission.HasCommandLevel(PermissionLevel.MODERATORS)))
+                                        .then(Commands.argument("file", StringArgumentType.string())
+                                                .executes(SimpleskillsCommands::exportData))
+                                        .executes(SimpleskillsCommands::exportData))
+                                .then(Commands.literal("import")
+                                        .requires(source -> source.permissions().hasPermission(new Permission.HasCommandLevel(PermissionLevel.MODERATORS)))
+                                        .then(Commands.argument("file", StringArgumentType.string())
+                                                .executes(SimpleskillsCommands::importData)))
                                 .then(Commands.literal("reset")
                                         .then(Commands.argument("username", StringArgumentType.string())
                                                 .requires(source -> source.permissions().hasPermission(new Permission.HasCommandLevel(PermissionLevel.MODERATORS)))
@@ -239,9 +270,8 @@ public class SimpleskillsCommands {
         Skills skill = parseSkillName(source, skillName);
         if (skill == null) return 0;
 
+        // Attributes and the tab menu are refreshed when the XP is applied at the end of the tick
         XPManager.addXPWithNotification(targetPlayer, skill, amount);
-        AttributeManager.refreshAllAttributes(targetPlayer);
-        SkillTabMenu.updateTabMenu(targetPlayer);
 
         source.sendSuccess(() -> Component.literal("§6[simpleskills]§f Added " + amount + " XP to " + playerName + "'s '" + skill.getDisplayName() + "'."), true);
         targetPlayer.sendSystemMessage(Component.literal("§6[simpleskills]§f You gained " + amount + " XP in " + skill.getDisplayName() + "!"), false);
@@ -265,7 +295,7 @@ public class SimpleskillsCommands {
         Skills skill = parseSkillName(source, skillName);
         if (skill == null) return 0;
 
-        int newXP = XPManager.getExperienceForLevel(newLevel);
+        int newXP = XPManager.getExperienceForLevel(skill, newLevel);
         db.savePlayerSkill(playerUuid, skill.getId(), newXP, newLevel);
         AttributeManager.refreshAllAttributes(targetPlayer);
         SkillTabMenu.updateTabMenu(targetPlayer);
@@ -309,17 +339,17 @@ public class SimpleskillsCommands {
         ServerPlayer targetPlayer = getPlayerByName(source, playerName);
         if (targetPlayer == null) return 0;
 
-        DatabaseManager db = DatabaseManager.getInstance();
-        String playerUuid = targetPlayer.getStringUUID();
-        db.ensurePlayerInitialized(playerUuid);
-
         Skills skill = parseSkillName(source, skillName);
         if (skill == null) return 0;
 
-        int level = XPManager.getSkillLevel(playerUuid, skill);
-        source.sendSuccess(() -> Component.literal("§6[simpleskills]§f " + playerName + "'s '" + skill.getDisplayName() + "' level: " + level), false);
-        Simpleskills.LOGGER.debug("Queried skill {} for player {}: level {}", skill.getDisplayName(), playerName, level);
-        return 1;
+        DatabaseManager db = DatabaseManager.getInstance();
+        String playerUuid = targetPlayer.getStringUUID();
+        return replyAsync(source, () -> {
+            db.ensurePlayerInitialized(playerUuid);
+            int level = XPManager.getSkillLevel(playerUuid, skill);
+            Simpleskills.LOGGER.debug("Queried skill {} for player {}: level {}", skill.getDisplayName(), playerName, level);
+            return "§6[simpleskills]§f " + playerName + "'s '" + skill.getDisplayName() + "' level: " + level;
+        });
     }
 
     private static int queryTotalLevel(CommandContext<CommandSourceStack> context) {
@@ -330,12 +360,12 @@ public class SimpleskillsCommands {
 
         DatabaseManager db = DatabaseManager.getInstance();
         String playerUuid = targetPlayer.getStringUUID();
-        db.ensurePlayerInitialized(playerUuid);
-
-        int totalLevel = db.getTotalSkillLevel(playerUuid);
-        source.sendSuccess(() -> Component.literal("§6[simpleskills]§f " + playerName + "'s total skill level: " + totalLevel), false);
-        Simpleskills.LOGGER.debug("Queried total level for player {}: {}", playerName, totalLevel);
-        return 1;
+        return replyAsync(source, () -> {
+            db.ensurePlayerInitialized(playerUuid);
+            int totalLevel = db.getTotalSkillLevel(playerUuid);
+            Simpleskills.LOGGER.debug("Queried total level for player {}: {}", playerName, totalLevel);
+            return "§6[simpleskills]§f " + playerName + "'s total skill level: " + totalLevel;
+        });
     }
 
     private static int showSkillLeaderboard(CommandContext<CommandSourceStack> context) {
@@ -346,57 +376,61 @@ public class SimpleskillsCommands {
         if (skill == null) return 0;
 
         DatabaseManager db = DatabaseManager.getInstance();
-        List<DatabaseManager.LeaderboardEntry> leaderboard = db.getSkillLeaderboard(skill.getId(), 5);
-
-        StringBuilder message = new StringBuilder();
-        message.append("§6[simpleskills]§f Top 5 - ").append(skill.getDisplayName()).append(" Leaderboard\n");
-        message.append("§8§m---------------------------------------\n");
-
-        for (int i = 0; i < leaderboard.size(); i++) {
-            DatabaseManager.LeaderboardEntry entry = leaderboard.get(i);
-            boolean isIronman = db.isPlayerInIronmanMode(entry.playerUuid());
-            String star = entry.prestige() > 0 ? ("§6★" + entry.prestige() + " §f") : "";
-            String namePrefix = (isIronman ? "§c§l☠ §f" : "§f") + star;
-            message.append(String.format("§e%d. %s%s - Level §b%d §7[§f%,d XP§7]\n",
-                    i + 1, namePrefix, entry.playerName(), entry.level(), entry.xp()));
-        }
-
-        if (leaderboard.isEmpty()) {
-            message.append("§7No players found for this skill.\n");
-        }
-
-        message.append("§8§m---------------------------------------");
-        source.sendSuccess(() -> Component.literal(message.toString()), false);
-        Simpleskills.LOGGER.debug("Displayed leaderboard for skill {}", skill.getDisplayName());
-        return 1;
+        return replyAsync(source, () -> {
+            List<DatabaseManager.LeaderboardEntry> leaderboard = db.getSkillLeaderboard(skill.getId(), 5);
+
+            StringBuilder message = new StringBuilder();
+            message.append("§6[simpleskills]§f Top 5 - ").append(skill.getDisplayName()).append(" Leaderboard\n");
+            message.append("§8§m---------------------------------------\n");
+
+            for (int i = 0; i < leaderboard.size(); i++) {
+                DatabaseManager.LeaderboardEntry entry = leaderboard.get(i);
+                boolean isIronman = db.isPlayerInIronmanMode(entry.playerUuid());
+                String star = entry.prestige() > 0 ? ("§6★" + entry.prestige() + " §f") : "";
+                String namePrefix = (isIronman ? "§c§l☠ §f" : "§f") + star;
+                message.append(String.format("§e%d. %s%s - Level §b%d §7[§f%,d XP§7]\n",
+                        i + 1, namePrefix, entry.playerName(), entry.level(), entry.xp()));
+            }
+
+            if (leaderboard.isEmpty()) {
+                message.append("§7No players found for this skill.\n");
+            }
+            appendMigrationNote(message, db);
+
+            message.append("§8§m---------------------------------------");
+            Simpleskills.LOGGER.debug("Displayed leaderboard for skill {}", skill.getDisplayName());
+            return message.toString();
+        });
     }
 
     private static int showTotalLevelLeaderboard(CommandContext<CommandSourceStack> context) {
         CommandSourceStack source = context.getSource();
         DatabaseManager db = DatabaseManager.getInstance();
-        List<DatabaseManager.LeaderboardEntry> leaderboard = db.getTotalLevelLeaderboard(5);
-
-        StringBuilder message = new StringBuilder();
-        message.append("§6[simpleskills]§f Top 5 - Total Level Leaderboard\n");
-        message.append("§8§m---------------------------------------\n");
-
-        for (int i = 0; i < leaderboard.size(); i++) {
-            DatabaseManager.LeaderboardEntry entry = leaderboard.get(i);
-            boolean isIronman = db.isPlayerInIronmanMode(entry.playerUuid());
-            String star = entry.prestige() > 0 ? ("§6★" + entry.prestige() + " §f") : "";
-            String namePrefix = (isIronman ? "§c§l☠ §f" : "§f") + star;
-            message.append(String.format("§e%d. %s%s - Total Level §b%d\n",
-                    i + 1, namePrefix, entry.playerName(), entry.level()));
-        }
-
-        if (leaderboard.isEmpty()) {
-            message.append("§7No players found.\n");
-        }
-
-        message.append("§8§m---------------------------------------");
-        source.sendSuccess(() -> Component.literal(message.toString()), false);
-        Simpleskills.LOGGER.debug("Displayed total level leaderboard");
-        return 1;
+        return replyAsync(source, () -> {
+            List<DatabaseManager.LeaderboardEntry> leaderboard = db.getTotalLevelLeaderboard(5);
+
+            StringBuilder message = new StringBuilder();
+            message.append("§6[simpleskills]§f Top 5 - Total Level Leaderboard\n");
+            message.append("§8§m---------------------------------------\n");
+
+            for (int i = 0; i < leaderboard.size(); i++) {
+                DatabaseManager.LeaderboardEntry entry = leaderboard.get(i);
+                boolean isIronman = db.isPlayerInIronmanMode(entry.playerUuid());
+                String star = entry.prestige() > 0 ? ("§6★" + entry.prestige() + " §f") : "";
+                String namePrefix = (isIronman ? "§c§l☠ §f" : "§f") + star;
+                message.append(String.format("§e%d. %s%s - Total Level §b%d\n",
+                        i + 1, namePrefix, entry.playerName(), entry.level()));
+            }
+
+            if (leaderboard.isEmpty()) {
+                message.append("§7No players found.\n");
+            }
+            appendMigrationNote(message, db);
+
+            message.append("§8§m---------------------------------------");
+            Simpleskills.LOGGER.debug("Displayed total level leaderboard");
+            return message.toString();
+        });
     }
 
     private static int showIronmanSkillLeaderboard(CommandContext<CommandSourceStack> context) {
@@ -407,52 +441,216 @@ public class SimpleskillsCommands {
         if (skill == null) return 0;
 
         DatabaseManager db = DatabaseManager.getInstance();
-        List<DatabaseManager.LeaderboardEntry> leaderboard = db.getIronmanSkillLeaderboard(skill.getId(), 5);
+        return replyAsync(source, () -> {
+            List<DatabaseManager.LeaderboardEntry> leaderboard = db.getIronmanSkillLeaderboard(skill.getId(), 5);
+
+            StringBuilder message = new StringBuilder();
+            message.append("§6[simpleskills]§f Top 5 - Ironman ").append(skill.getDisplayName()).append(" Leaderboard\n");
+            message.append("§8§m---------------------------------------\n");
+
+            for (int i = 0; i < leaderboard.size(); i++) {
+                DatabaseManager.LeaderboardEntry entry = leaderboard.get(i);
+                String star = entry.prestige() > 0 ? ("§6★" + entry.prestige() + " §f") : "";
+                message.append(String.format("§e%d. §c§l☠ §f%s%s - Level §b%d §7[§f%,d XP§7]\n",
+                        i + 1, star, entry.playerName(), entry.level(), entry.xp()));
+            }
+
+            if (leaderboard.isEmpty()) {
+                message.append("§7No Ironman players found for this skill.\n");
+            }
+            appendMigrationNote(message, db);
+
+            message.append("§8§m---------------------------------------");
+            Simpleskills.LOGGER.debug("Displayed Ironman leaderboard for skill {}", skill.getDisplayName());
+            return message.toString();
+        });
+    }
 
-        StringBuilder message = new StringBuilder();
-        message.append("§6[simpleskills]§f Top 5 - Ironman ").append(skill.getDisplayName()).append(" Leaderboard\n");
-        message.append("§8§m---------------------------------------\n");
+    private static int showIronmanTotalLevelLeaderboard(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        DatabaseManager db = DatabaseManager.getInstance();
+        return replyAsync(source, () -> {
+            List<DatabaseManager.LeaderboardEntry> leaderboard = db.getIronmanTotalLevelLeaderboard(5);
+
+            StringBuilder message = new StringBuilder();
+            message.append("§6[simpleskills]§f Top 5 - Ironman Total Level Leaderboard\n");
+            message.append("§8§m---------------------------------------\n");
+
+            for (int i = 0; i < leaderboard.size(); i++) {
+                DatabaseManager.LeaderboardEntry entry = leaderboard.get(i);
+                String star = entry.prestige() > 0 ? ("§6★" + entry.prestige() + " §f") : "";
+                message.append(String.format("§e%d. §c§l☠ §f%s%s - Total Level §b%d\n",
+                        i + 1, star, entry.playerName(), entry.level()));
+            }
+
+            if (leaderboard.isEmpty()) {
+                message.append("§7No Ironman players found.\n");
+            }
+            appendMigrationNote(message, db);
+
+            message.append("§8§m---------------------------------------");
+            Simpleskills.LOGGER.debug("Displayed Ironman total level leaderboard");
+            return message.toString();
+        });
+    }
 
-        for (int i = 0; i < leaderboard.size(); i++) {
-            DatabaseManager.LeaderboardEntry entry = leaderboard.get(i);
-            String star = entry.prestige() > 0 ? ("§6★" + entry.prestige() + " §f") : "";
-            message.append(String.format("§e%d. §c§l☠ §f%s%s - Level §b%d §7[§f%,d XP§7]\n",
-                    i + 1, star, entry.playerName(), entry.level(), entry.xp()));
+    /**
+     * Leaderboards read whatever the background legacy migration has copied so far.
+     */
+    private static void appendMigrationNote(StringBuilder message, DatabaseManager db) {
+        if (db.isMigrationInProgress()) {
+            message.append("§7Database migration in progress; some players may be missing.\n");
         }
+    }
 
-        if (leaderboard.isEmpty()) {
-            message.append("§7No Ironman players found for this skill.\n");
+    /**
+     * Builds a reply on the database query thread and sends it from the server thread, so commands that
+     * read the database never stall the tick.
+     */
+    private static int replyAsync(CommandSourceStack source, Supplier<String> reply) {
+        CompletableFuture<String> future;
+        try {
+            future = DatabaseManager.getInstance().runQuery(reply);
+        } catch (DatabaseManager.DatabaseException e) {
+            source.sendFailure(Component.literal("§6[simpleskills]§f " + e.getMessage()));
+            return 0;
         }
+        future.whenComplete((message, error) -> source.getServer().execute(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                source.sendFailure(Component.literal("§6[simpleskills]§f " + cause.getMessage()));
+            } else {
+                source.sendSuccess(() -> Component.literal(message), false);
+            }
+        }));
+        return 1;
+    }
 
-        message.append("§8§m---------------------------------------");
-        source.sendSuccess(() -> Component.literal(message.toString()), false);
-        Simpleskills.LOGGER.debug("Displayed Ironman leaderboard for skill {}", skill.getDisplayName());
+    private static int showDatabaseStats(CommandContext<CommandSourceStack> context) {
+        DatabaseWriteStats.Snapshot stats = DatabaseManager.getInstance().getWriteStats();
+        String message = String.format("""
+                §6[simpleskills]§f Database group commit
+                §7Writes: §f%,d §7in §f%,d §7commits (§f%,d §7fsyncs saved)
+                §7Batch size: §favg %.1f§7, max §f%d
+                §7Commit latency: §favg %.2f ms§7, max §f%.2f ms
+                §7Failed commits: §f%d
+                §7Failed writes: §f%,d§7, dropped §f%,d""",
+                stats.writes(), stats.commits(), stats.fsyncsSaved(),
+                stats.averageBatchSize(), stats.largestBatch(),
+                stats.averageCommitMillis(), stats.maxCommitMillis(),
+                stats.failures(), stats.failedWrites(), stats.droppedWrites());
+        context.getSource().sendSuccess(() -> Component.literal(message), false);
         return 1;
     }
 
-    private static int showIronmanTotalLevelLeaderboard(CommandContext<CommandSourceStack> context) {
+    private static int showXpHistory(CommandContext<CommandSourceStack> context) {
         CommandSourceStack source = context.getSource();
-        DatabaseManager db = DatabaseManager.getInstance();
-        List<DatabaseManager.LeaderboardEntry> leaderboard = db.getIronmanTotalLevelLeaderboard(5);
+        String playerName = StringArgumentType.getString(context, "targets");
+        int hours;
+        try {
+            hours = IntegerArgumentType.getInteger(context, "hours");
+        } catch (IllegalArgumentException e) {
+            hours = 24;
+        }
+        ServerPlayer targetPlayer = getPlayerByName(source, playerName);
+        if (targetPlayer == null) return 0;
 
-        StringBuilder message = new StringBuilder();
-        message.append("§6[simpleskills]§f Top 5 - Ironman Total Level Leaderboard\n");
-        message.append("§8§m---------------------------------------\n");
+        // Beyond two days the hourly buckets are too many to read and may already be pruned
+        boolean daily = hours > 48;
+        int period = hours;
+        String playerUuid = targetPlayer.getStringUUID();
+        return replyAsync(source, () -> {
+            List<SkillStore.XpBucket> history = DatabaseManager.getInstance().getXpHistory(playerUuid, period, daily);
+
+            StringBuilder message = new StringBuilder();
+            message.append("§6[simpleskills]§f XP history for ").append(playerName).append(" - last ").append(period).append(" hours\n");
+            message.append("§8§m---------------------------------------\n");
+            for (Skills skill : Skills.values()) {
+                long total = 0;
+                long best = 0;
+                for (SkillStore.XpBucket bucket : history) {
+                    if (bucket.skillId().equals(skill.getId())) {
+                        total += bucket.xp();
+                        best = Math.max(best, bucket.xp());
+                    }
+                }
+                if (total > 0) {
+                    message.append(String.format("§e%s§7: §f%,d XP §7(§f%,.0f XP/h§7, best %s §f%,d§7)\n",
+                            skill.getDisplayName(), total, (double) total / period, daily ? "day" : "hour", best));
+                }
+            }
+            if (history.isEmpty()) {
+                message.append("§7No XP recorded in this period.\n");
+            }
+            message.append("§8§m---------------------------------------");
+            return message.toString();
+        });
+    }
 
-        for (int i = 0; i < leaderboard.size(); i++) {
-            DatabaseManager.LeaderboardEntry entry = leaderboard.get(i);
-            String star = entry.prestige() > 0 ? ("§6★" + entry.prestige() + " §f") : "";
-            message.append(String.format("§e%d. §c§l☠ §f%s%s - Total Level §b%d\n",
-                    i + 1, star, entry.playerName(), entry.level()));
+    private static int backupDatabase(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        CompletableFuture<Path> backup;
+        try {
+            backup = DatabaseManager.getInstance().backupDatabase();
+        } catch (DatabaseManager.DatabaseException e) {
+            source.sendFailure(Component.literal("§6[simpleskills]§f Backup failed: " + e.getMessage()));
+            return 0;
         }
+        source.sendSuccess(() -> Component.literal("§6[simpleskills]§f Backing up the database..."), true);
+        // The snapshot is written off the server thread; report back on it once done
+        backup.whenComplete((path, error) -> source.getServer().execute(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                source.sendFailure(Component.literal("§6[simpleskills]§f Backup failed: " + cause.getMessage()));
+            } else {
+                source.sendSuccess(() -> Component.literal("§6[simpleskills]§f Database backed up to " + path.getFileName() + "."), true);
+            }
+        }));
+        return 1;
+    }
 
-        if (leaderboard.isEmpty()) {
-            message.append("§7No Ironman players found.\n");
+    private static int exportData(CommandContext<CommandSourceStack> context) {
+        String fileName;
+        try {
+            fileName = StringArgumentType.getString(context, "file");
+        } catch (IllegalArgumentException e) {
+            fileName = "simpleskills-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".jsonl";
         }
+        String exportName = fileName;
+        return runDataTransfer(context, "Exporting player data to " + exportName + "...",
+                () -> DatabaseManager.getInstance().exportData(exportName),
+                players -> "Exported " + players + " players to " + DatabaseManager.EXPORT_DIRECTORY + "/" + exportName + ".");
+    }
 
-        message.append("§8§m---------------------------------------");
-        source.sendSuccess(() -> Component.literal(message.toString()), false);
-        Simpleskills.LOGGER.debug("Displayed Ironman total level leaderboard");
+    private static int importData(CommandContext<CommandSourceStack> context) {
+        String fileName = StringArgumentType.getString(context, "file");
+        return runDataTransfer(context, "Importing player data from " + fileName + "; online players are skipped...",
+                () -> DatabaseManager.getInstance().importData(fileName, context.getSource().getServer()),
+                players -> "Imported " + players + " players from " + fileName + ".");
+    }
+
+    /**
+     * Starts an export or import off the server thread and reports the outcome back to the source.
+     */
+    private static int runDataTransfer(CommandContext<CommandSourceStack> context, String startMessage,
+                                       Supplier<CompletableFuture<Long>> transfer, LongFunction<String> doneMessage) {
+        CommandSourceStack source = context.getSource();
+        CompletableFuture<Long> future;
+        try {
+            future = transfer.get();
+        } catch (DatabaseManager.DatabaseException e) {
+            source.sendFailure(Component.literal("§6[simpleskills]§f " + e.getMessage()));
+            return 0;
+        }
+        source.sendSuccess(() -> Component.literal("§6[simpleskills]§f " + startMessage), true);
+        future.whenComplete((players, error) -> source.getServer().execute(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                source.sendFailure(Component.literal("§6[simpleskills]§f " + cause.getMessage()));
+            } else {
+                source.sendSuccess(() -> Component.literal("§6[simpleskills]§f " + doneMessage.apply(players)), true);
+            }
+        }));
         return 1;
     }
 
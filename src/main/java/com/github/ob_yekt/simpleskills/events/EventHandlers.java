@@ -456,6 +456,8 @@ public class EventHandlers {
             String playerName = player.getName().getString();
             DatabaseManager db = DatabaseManager.getInstance();
 
+            // Keep the profile cached while the player is online
+            db.playerJoined(playerUuid);
             // Critical: ensure player exists in DB first
             db.ensurePlayerInitialized(playerUuid);
             db.updatePlayerName(playerUuid, playerName);
@@ -505,6 +507,9 @@ public class EventHandlers {
             AttributeManager.clearSkillAttributes(player);
             AttributeManager.clearIronmanAttributes(player);
             SkillTabMenu.clearPlayerVisibility(player.getUUID());
+            // Apply XP granted this tick, then commit pending writes and drop the cached profile
+            XpGrantBus.playerLeft(player);
+            DatabaseManager.getInstance().playerLeft(playerUuid);
 
             Simpleskills.LOGGER.debug("Player disconnected: {}", playerName);
         });
@@ -50,6 +50,7 @@ public class ConfigManager {
     private static final Map<String, Identifier> FISHING_LOOT_TABLES = new HashMap<>();
     private static JsonObject featureConfig = new JsonObject();
     private static JsonObject combatConfig = new JsonObject();
+    private static JsonObject xpCurvesConfig = new JsonObject();
 
     /**
      * Initializes all configurations.
@@ -80,6 +81,7 @@ public class ConfigManager {
             loadFishingLootConfig();
 			loadFarmingXPConfig();
             loadCombatConfig();
+            loadXpCurvesConfig();
             Simpleskills.LOGGER.info("All configurations initialized successfully.");
         } catch (IOException e) {
             Simpleskills.LOGGER.error("Error initializing configurations: {}", e.getMessage());
@@ -169,6 +171,38 @@ public class ConfigManager {
         json.addProperty("crafting_lore_in_tooltips_enabled", true);
         json.addProperty("custom_fishing_loot_enabled", true);
         json.addProperty("fishing_speed_bonus_enabled", true);
+        json.addProperty("database_write_behind_enabled", true);
+        json.addProperty("database_flush_interval_ms", 1000);
+        json.addProperty("database_flush_batch_size", 256);
+        json.addProperty("database_health_check_interval_seconds", 30);
+        json.addProperty("database_migration_chunk_rows", 5000);
+        json.addProperty("database_migration_chunk_delay_ms", 250);
+        json.addProperty("database_storage_layout", "compact");
+        json.addProperty("database_tuning_profile", "balanced");
+        json.addProperty("database_checkpoint_interval_seconds", 60);
+        json.addProperty("database_wal_size_limit_mb", 64);
+        json.addProperty("database_read_pool_size", 2);
+        json.addProperty("database_backend", "sqlite");
+        json.addProperty("database_shard_count", 1);
+        // The journal survives a server crash but not a power loss, which can lose up to one fold interval of saves
+        json.addProperty("database_xp_journal_enabled", false);
+        json.addProperty("database_xp_journal_size_mb", 16);
+        json.addProperty("database_xp_journal_fold_interval_ms", 1000);
+        json.addProperty("database_name_history_limit", 10);
+        json.addProperty("database_cache_warmup", "off");
+        json.addProperty("database_cache_warmup_players", 1000);
+        json.addProperty("database_cache_warmup_budget_mb", 32);
+        json.addProperty("database_offline_cache_size", 500);
+        json.addProperty("database_offline_cache_ttl_seconds", 300);
+        json.addProperty("database_login_prefetch_enabled", true);
+        json.addProperty("database_backup_interval_minutes", 0);
+        json.addProperty("database_backup_retention", 7);
+        json.addProperty("database_import_chunk_size", 1000);
+        json.addProperty("database_xp_history_enabled", false);
+        json.addProperty("database_xp_history_flush_interval_seconds", 10);
+        json.addProperty("database_xp_history_rollup_interval_minutes", 5);
+        json.addProperty("database_xp_history_raw_retention_hours", 48);
+        json.addProperty("database_xp_history_hourly_retention_days", 30);
         return json;
     }
 
@@ -423,6 +457,43 @@ public class ConfigManager {
         return combatConfig;
     }
 
+    /**
+     * Loads the XP curve definitions from xp_curves.json: a "default" curve and optional per-skill
+     * curves under "skills", keyed by skill ID. See {@link XpCurve} for the curve formats.
+     */
+    private static void loadXpCurvesConfig() {
+        Path filePath = CONFIG_DIR.resolve("xp_curves.json");
+        try {
+            xpCurvesConfig = loadJsonFile(filePath, getDefaultXpCurvesConfig());
+            Simpleskills.LOGGER.info("Loaded xp_curves.json");
+        } catch (JsonSyntaxException e) {
+            Simpleskills.LOGGER.error("JSON syntax error in xp_curves.json: {}", e.getMessage());
+            xpCurvesConfig = getDefaultXpCurvesConfig(); // Fallback to defaults
+        } catch (IOException e) {
+            Simpleskills.LOGGER.error("Error loading xp_curves.json: {}", e.getMessage());
+            xpCurvesConfig = getDefaultXpCurvesConfig(); // Fallback to defaults
+        }
+    }
+
+    private static JsonObject getDefaultXpCurvesConfig() {
+        JsonObject curve = new JsonObject();
+        curve.addProperty("type", "power");
+        curve.addProperty("scaling", XpCurve.DEFAULT_SCALING);
+        curve.addProperty("exponent", XpCurve.DEFAULT_EXPONENT);
+        curve.addProperty("offset", XpCurve.DEFAULT_OFFSET);
+        JsonObject json = new JsonObject();
+        json.add("default", curve);
+        json.add("skills", new JsonObject());
+        return json;
+    }
+
+    public static JsonObject getXpCurvesConfig() {
+        if (xpCurvesConfig == null || xpCurvesConfig.isEmpty()) {
+            return getDefaultXpCurvesConfig();
+        }
+        return xpCurvesConfig;
+    }
+
     /**
      * Loads cooking multipliers from cooking_multipliers.json.
      */
@@ -2041,4 +2112,37 @@ public class ConfigManager {
     public static JsonObject getFeatureConfig() {
         return featureConfig;
     }
+
+    /**
+     * Gets a boolean from config.json, falling back to the default if missing or invalid.
+     */
+    public static boolean getFeatureBoolean(String key, boolean defaultValue) {
+        if (featureConfig.has(key) && featureConfig.get(key).isJsonPrimitive() && featureConfig.getAsJsonPrimitive(key).isBoolean()) {
+            return featureConfig.get(key).getAsBoolean();
+        }
+        Simpleskills.LOGGER.warn("Invalid or missing config key '{}', using default: {}", key, defaultValue);
+        return defaultValue;
+    }
+
+    /**
+     * Gets an integer from config.json, falling back to the default if missing or invalid.
+     */
+    public static int getFeatureInt(String key, int defaultValue) {
+        if (featureConfig.has(key) && featureConfig.get(key).isJsonPrimitive() && featureConfig.getAsJsonPrimitive(key).isNumber()) {
+            return featureConfig.get(key).getAsInt();
+        }
+        Simpleskills.LOGGER.warn("Invalid or missing config key '{}', using default: {}", key, defaultValue);
+        return defaultValue;
+    }
+
+    /**
+     * Gets a string from config.json, falling back to the default if missing or invalid.
+     */
+    public static String getFeatureString(String key, String defaultValue) {
+        if (featureConfig.has(key) && featureConfig.get(key).isJsonPrimitive() && featureConfig.getAsJsonPrimitive(key).isString()) {
+            return featureConfig.get(key).getAsString();
+        }
+        Simpleskills.LOGGER.warn("Invalid or missing config key '{}', using default: {}", key, defaultValue);
+        return defaultValue;
+    }
 }
\ No newline at end of file
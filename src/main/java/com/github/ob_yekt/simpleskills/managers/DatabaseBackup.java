@@ -0,0 +1,81 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Online snapshots of simpleskills.db for {@link SqliteSkillStore}, written with VACUUM INTO on a connection
+ * of their own. In WAL mode that only holds a read snapshot of the source, so the writer keeps committing
+ * while the copy runs, and the result is a consistent, compacted database file. Snapshots go to a
+ * simpleskills-backups directory next to the database and the oldest are deleted beyond the retention.
+ */
+final class DatabaseBackup {
+    static final String DIRECTORY_NAME = "simpleskills-backups";
+    private static final String PREFIX = "simpleskills-";
+    private static final String SUFFIX = ".db";
+    private static final String PARTIAL_SUFFIX = ".partial";
+    // Sorts in creation order, so rotation can go by file name
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private DatabaseBackup() {} // Utility class
+
+    /**
+     * Writes a snapshot of the database and prunes old ones; returns the snapshot's path.
+     */
+    static Path snapshot(Path databasePath, int retention) throws SQLException, IOException {
+        Path directory = databasePath.resolveSibling(DIRECTORY_NAME);
+        Files.createDirectories(directory);
+        Path target = directory.resolve(PREFIX + LocalDateTime.now().format(TIMESTAMP) + SUFFIX);
+        // Written under a temporary name, so a crash mid-copy never leaves a truncated snapshot behind
+        Path partial = directory.resolve(target.getFileName() + PARTIAL_SUFFIX);
+        Files.deleteIfExists(partial);
+        long startMillis = System.currentTimeMillis();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databasePath)) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA busy_timeout = 5000");
+            }
+            try (PreparedStatement vacuum = connection.prepareStatement("VACUUM INTO ?")) {
+                vacuum.setString(1, partial.toString());
+                vacuum.execute();
+            }
+        } catch (SQLException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        Simpleskills.LOGGER.info("Backed up database to {} in {} ms.", target, System.currentTimeMillis() - startMillis);
+        prune(directory, Math.max(1, retention));
+        return target;
+    }
+
+    private static void prune(Path directory, int retention) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+                    snapshots.add(file);
+                }
+            });
+        }
+        snapshots.sort(null);
+        for (int i = 0; i < snapshots.size() - retention; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+            Simpleskills.LOGGER.debug("Deleted old database backup {}.", snapshots.get(i));
+        }
+    }
+}
@@ -2,34 +2,55 @@ package com.github.ob_yekt.simpleskills.managers;
 
 import com.github.ob_yekt.simpleskills.Simpleskills;
 import com.github.ob_yekt.simpleskills.Skills;
+import com.github.ob_yekt.simpleskills.utils.UuidSet;
 import net.minecraft.server.MinecraftServer;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.sql.*;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 /**
- * Manages the SQLite database for storing player skill data and settings.
+ * Entry point for player skill data and settings. Keeps the per-player caches and hands every load
+ * and save to the configured {@link SkillStore} (SQLite by default, see database_backend).
  * Added leaderboard queries for skills and total levels.
+ * Getters may be called from any thread (the client HUD, async work); changes are made on the server thread.
  */
 public class DatabaseManager {
-    private static final String DATABASE_NAME = "simpleskills.db";
-    private static final List<String> SKILLS = Arrays.stream(Skills.values())
-            .map(Skills::getId)
-            .toList();
+    // Rough heap cost of one cached profile with its map entry and key, used for database_cache_warmup_budget_mb
+    private static final long ESTIMATED_PROFILE_BYTES = 160L + 8L * Skills.values().length;
+    private static final int WARMUP_BATCH_SIZE = 256;
+    public static final String EXPORT_DIRECTORY = "simpleskills-exports";
     private static DatabaseManager instance;
-    private Connection connection;
-    private Path currentDatabasePath;
-    private static final Map<String, Map<String, SkillData>> skillCache = new HashMap<>();
-    private static final Map<String, Boolean> ironmanCache = new HashMap<>();
-    private static final Map<String, Integer> prestigeCache = new HashMap<>();
-    private static final Map<String, Integer> totalLevelCache = new HashMap<>();
+    // Null until initializeDatabase() and after close()
+    private volatile SkillStore store;
+    private volatile Path dataDirectory;
+    // Exports and imports run one at a time, off the server thread
+    private static final ExecutorService transferExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "simpleskills-data-transfer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Command reads such as leaderboards, so a query never stalls the server thread
+    private static final ExecutorService queryExecutor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "simpleskills-query");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Profiles of online players plus a bounded set of recently read offline ones; lookups are lock-free
+    private static final ProfileCache profileCache = new ProfileCache();
+    // Every initialized player in the store, loaded on open; guarded by its own monitor
+    private static final UuidSet knownPlayers = new UuidSet();
 
     // Custom exception for database errors
     public static class DatabaseException extends RuntimeException {
@@ -54,318 +75,417 @@ public class DatabaseManager {
     }
 
     public void initializeDatabase(MinecraftServer server) {
-        Path worldDirectory = server.getWorldPath(net.minecraft.world.level.storage.LevelResource.ROOT).resolve("data");
-        Path newDatabasePath = worldDirectory.resolve(DATABASE_NAME);
+        Path dataDirectory = server.getWorldPath(net.minecraft.world.level.storage.LevelResource.ROOT).resolve("data");
 
-        if (currentDatabasePath != null && currentDatabasePath.equals(newDatabasePath) && isConnectionValid()) {
+        SkillStore current = store;
+        if (current != null && current.isOpenAt(dataDirectory)) {
             return;
         }
 
-        closeConnection();
-
+        // Cached data and pending writes belong to the previous world, so close it before switching
+        close();
+        SkillStore newStore = createStore();
         try {
-            Files.createDirectories(worldDirectory);
-            connection = DriverManager.getConnection("jdbc:sqlite:" + newDatabasePath);
-            connection.setAutoCommit(true);
-            // Enable WAL mode for better write performance
-            try (PreparedStatement pragmaStmt = connection.prepareStatement("PRAGMA journal_mode=WAL;")) {
-                pragmaStmt.execute();
+            newStore.open(dataDirectory);
+        } catch (DatabaseException e) {
+            // A store that failed halfway may still hold connections and threads
+            newStore.close();
+            throw e;
+        }
+        synchronized (this) {
+            profileCache.configure();
+            store = newStore;
+            this.dataDirectory = dataDirectory;
+            loadKnownPlayers(newStore);
+        }
+        startCacheWarmup(server, newStore);
+    }
+
+    /**
+     * Streams stored profiles into the caches when database_cache_warmup is "recent" (the
+     * database_cache_warmup_players most recently seen) or "all", so players reconnecting after a restart
+     * hit the cache. Profiles are read on a background thread and installed on the server thread in batches,
+     * never replacing anything the server cached in the meantime. They count as offline profiles, so no more
+     * than database_offline_cache_size are read.
+     */
+    private void startCacheWarmup(MinecraftServer server, SkillStore source) {
+        String mode = ConfigManager.getFeatureString("database_cache_warmup", "off").trim().toLowerCase(Locale.ROOT);
+        if (!mode.equals("recent") && !mode.equals("all")) {
+            if (!mode.equals("off")) {
+                Simpleskills.LOGGER.warn("Unknown database_cache_warmup '{}', not warming the cache.", mode);
             }
-            currentDatabasePath = newDatabasePath;
-            createTables();
-            Simpleskills.LOGGER.info("Connected to SQLite database at: {}", newDatabasePath);
-        } catch (SQLException | java.io.IOException e) {
-            Simpleskills.LOGGER.error("Failed to initialize database at {}.", newDatabasePath, e);
-            throw new DatabaseException("Database initialization failed", e);
+            return;
         }
+        long budgetBytes = ConfigManager.getFeatureInt("database_cache_warmup_budget_mb", 32) * 1024L * 1024L;
+        int limit = (int) Math.min(Integer.MAX_VALUE, budgetBytes / ESTIMATED_PROFILE_BYTES);
+        if (mode.equals("recent")) {
+            limit = Math.min(limit, ConfigManager.getFeatureInt("database_cache_warmup_players", 1000));
+        }
+        limit = Math.min(limit, profileCache.offlineCapacity());
+        if (limit <= 0) {
+            return;
+        }
+        int profileLimit = limit;
+        Thread thread = new Thread(() -> {
+            long startMillis = System.currentTimeMillis();
+            List<Map.Entry<String, SkillStore.Profile>> batch = new ArrayList<>(WARMUP_BATCH_SIZE);
+            int[] streamed = {0};
+            try {
+                source.forEachProfile(profileLimit, (playerUuid, profile) -> {
+                    batch.add(Map.entry(playerUuid, profile));
+                    streamed[0]++;
+                    if (batch.size() == WARMUP_BATCH_SIZE) {
+                        List<Map.Entry<String, SkillStore.Profile>> ready = List.copyOf(batch);
+                        batch.clear();
+                        server.execute(() -> installWarmProfiles(source, ready));
+                    }
+                });
+                List<Map.Entry<String, SkillStore.Profile>> ready = List.copyOf(batch);
+                server.execute(() -> installWarmProfiles(source, ready));
+                Simpleskills.LOGGER.info("Read {} player profiles for the cache warmup in {} ms.", streamed[0],
+                        System.currentTimeMillis() - startMillis);
+            } catch (DatabaseException e) {
+                Simpleskills.LOGGER.warn("Cache warmup stopped after {} profiles: {}", streamed[0], e.getMessage());
+            }
+        }, "simpleskills-cache-warmup");
+        thread.setDaemon(true);
+        thread.start();
     }
 
-    private boolean isConnectionValid() {
-        try {
-            return connection != null && !connection.isClosed() && connection.isValid(5);
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Error checking database connection validity: {}", e.getMessage());
-            return false;
+    private synchronized void installWarmProfiles(SkillStore source, List<Map.Entry<String, SkillStore.Profile>> profiles) {
+        if (store != source) {
+            return; // Closed or switched worlds since the profiles were read
+        }
+        for (Map.Entry<String, SkillStore.Profile> entry : profiles) {
+            cacheProfileIfAbsent(entry.getKey(), entry.getValue());
         }
     }
 
-    private void createTables() {
-        String createPlayersTable = """
-        CREATE TABLE IF NOT EXISTS players (
-            player_uuid TEXT PRIMARY KEY,
-            is_ironman INTEGER DEFAULT 0,
-            is_tab_menu_visible INTEGER DEFAULT 1,
-            prestige INTEGER DEFAULT 0
-        )
-    """;
-        String createSkillsTable = """
-        CREATE TABLE IF NOT EXISTS player_skills (
-            player_uuid TEXT,
-            skill_id TEXT,
-            xp INTEGER DEFAULT 0,
-            level INTEGER DEFAULT 1,
-            PRIMARY KEY (player_uuid, skill_id)
-        )
-    """;
-        String createPlayerNamesTable = """
-        CREATE TABLE IF NOT EXISTS player_names (
-            uuid TEXT,
-            name TEXT,
-            last_seen INTEGER,
-            PRIMARY KEY (uuid, last_seen)
-        )
-    """;
-        String createIndex = """
-        CREATE INDEX IF NOT EXISTS idx_player_skills_uuid ON player_skills (player_uuid)
-    """;
-
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(createPlayersTable);
-            stmt.execute(createSkillsTable);
-            stmt.execute(createPlayerNamesTable);
-            stmt.execute(createIndex);
-            // Lightweight migration for older databases missing prestige column
-            try {
-                stmt.execute("ALTER TABLE players ADD COLUMN prestige INTEGER DEFAULT 0");
-            } catch (SQLException ignored) {
-                // Column likely exists; ignore
-            }
-            Simpleskills.LOGGER.debug("Created database tables and indexes if they didn't exist.");
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to create database tables or indexes: {}", e.getMessage());
-            throw new DatabaseException("Failed to create tables", e);
+    /**
+     * Reads a player's profile straight from the store, for {@link ProfilePrefetcher} on a worker thread.
+     * Leaves the caches alone; the result is installed on the server thread with installPrefetchedProfile.
+     * Returns null if nothing is stored for the player.
+     */
+    public SkillStore.Profile prefetchProfile(String playerUuid) {
+        SkillStore current = store();
+        if (current.playerExists(playerUuid)) {
+            markPlayerKnown(playerUuid);
         }
+        return current.loadProfile(playerUuid);
     }
 
-    public void initializePlayer(String playerUuid) {
-        checkConnection();
-        String insertPlayerSql = "INSERT OR IGNORE INTO players (player_uuid, is_ironman, is_tab_menu_visible, prestige) VALUES (?, 0, 1, 0)";
-        String insertSkillSql = "INSERT OR IGNORE INTO player_skills (player_uuid, skill_id, xp, level) VALUES (?, ?, 0, 1)";
+    /**
+     * Caches a profile read by prefetchProfile for a joining player. Must run on the server thread; entries
+     * the server cached since the read are kept.
+     */
+    public synchronized void installPrefetchedProfile(String playerUuid, SkillStore.Profile profile) {
+        if (profile != null && store != null) {
+            playerJoined(playerUuid);
+            cacheProfileIfAbsent(playerUuid, profile);
+        }
+    }
 
-        try {
-            connection.setAutoCommit(false);
+    private void cacheProfileIfAbsent(String playerUuid, SkillStore.Profile profile) {
+        UUID uuid = PlayerIds.parseUuid(playerUuid);
+        if (uuid != null && !profileCache.contains(uuid)) {
+            profileCache.put(uuid, PlayerProfile.fromStore(profile));
+        }
+    }
 
-            try (PreparedStatement playerStmt = connection.prepareStatement(insertPlayerSql)) {
-                playerStmt.setString(1, playerUuid);
-                playerStmt.executeUpdate();
+    private static SkillStore createStore() {
+        String backend = ConfigManager.getFeatureString("database_backend", "sqlite");
+        return switch (backend.trim().toLowerCase(Locale.ROOT)) {
+            case "memory" -> new InMemorySkillStore();
+            case "sqlite" -> createSqliteStore();
+            default -> {
+                Simpleskills.LOGGER.warn("Unknown database_backend '{}', using sqlite.", backend);
+                yield createSqliteStore();
             }
+        };
+    }
 
-            try (PreparedStatement skillStmt = connection.prepareStatement(insertSkillSql)) {
-                for (String skill : SKILLS) {
-                    skillStmt.setString(1, playerUuid);
-                    skillStmt.setString(2, skill);
-                    skillStmt.executeUpdate();
-                }
-            }
+    private static SkillStore createSqliteStore() {
+        int shardCount = ConfigManager.getFeatureInt("database_shard_count", 1);
+        return shardCount > 1 ? new ShardedSkillStore(shardCount) : new SqliteSkillStore();
+    }
 
-            connection.commit();
-            // Initialize cache with default skills
-            Map<String, SkillData> defaultSkills = new HashMap<>();
-            for (String skill : SKILLS) {
-                defaultSkills.put(skill, new SkillData(0, 1));
-            }
-            skillCache.put(playerUuid, defaultSkills);
-            ironmanCache.put(playerUuid, false);
-            prestigeCache.put(playerUuid, 0);
-            totalLevelCache.put(playerUuid, SKILLS.size());
-            Simpleskills.LOGGER.debug("Initialized player data for UUID: {}", playerUuid);
-        } catch (SQLException e) {
+    private SkillStore store() {
+        SkillStore current = store;
+        if (current == null) {
+            Simpleskills.LOGGER.error("No database connection available.");
+            throw new DatabaseException("No database connection available", null);
+        }
+        return current;
+    }
+
+    /**
+     * Starts a background snapshot of the database, see database_backup_retention.
+     */
+    public CompletableFuture<Path> backupDatabase() {
+        return store().backup();
+    }
+
+    /**
+     * Runs a read for a command on a background thread. Callers report the result back on the server thread.
+     */
+    public <T> CompletableFuture<T> runQuery(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, queryExecutor);
+    }
+
+    /**
+     * Exports all player data to simpleskills-exports/&lt;fileName&gt; in the world's data directory on a
+     * background thread; completes with the number of players written.
+     */
+    public CompletableFuture<Long> exportData(String fileName) {
+        SkillStore source = store();
+        Path file = transferFile(fileName);
+        return CompletableFuture.supplyAsync(() -> {
             try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
-            }
-            Simpleskills.LOGGER.error("Failed to initialize player UUID {}: {}", playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to initialize player", e);
-        } finally {
+                Files.createDirectories(file.getParent());
+                long startMillis = System.currentTimeMillis();
+                long players = SkillDataTransfer.export(source, file);
+                Simpleskills.LOGGER.info("Exported {} players to {} in {} ms.", players, file, System.currentTimeMillis() - startMillis);
+                return players;
+            } catch (IOException e) {
+                Simpleskills.LOGGER.error("Failed to export player data to {}: {}", file, e.getMessage());
+                throw new DatabaseException("Failed to export player data", e);
+            }
+        }, transferExecutor);
+    }
+
+    /**
+     * Imports a file written by exportData on a background thread; completes with the number of players
+     * imported. Players that are online are skipped, since their cached data would overwrite the import.
+     * Must be called on the server thread.
+     */
+    public CompletableFuture<Long> importData(String fileName, MinecraftServer server) {
+        SkillStore target = store();
+        Path file = transferFile(fileName);
+        Set<String> online = new HashSet<>();
+        server.getPlayerList().getPlayers().forEach(player -> online.add(player.getStringUUID()));
+        int chunkSize = Math.max(1, ConfigManager.getFeatureInt("database_import_chunk_size", 1000));
+        return CompletableFuture.supplyAsync(() -> {
             try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
-            }
+                long startMillis = System.currentTimeMillis();
+                long players = SkillDataTransfer.importFrom(target, file, chunkSize, online, chunk -> {
+                    chunk.forEach(DatabaseManager::markPlayerKnown);
+                    // Cached profiles of these players are now stale; caches are only touched on the server thread
+                    server.execute(() -> evictCachedPlayers(target, chunk));
+                });
+                Simpleskills.LOGGER.info("Imported {} players from {} in {} ms.", players, file, System.currentTimeMillis() - startMillis);
+                return players;
+            } catch (IOException e) {
+                Simpleskills.LOGGER.error("Failed to import player data from {}: {}", file, e.getMessage());
+                throw new DatabaseException("Failed to import player data: " + e.getMessage(), e);
+            }
+        }, transferExecutor);
+    }
+
+    private Path transferFile(String fileName) {
+        Path directory = dataDirectory;
+        if (directory == null || !fileName.matches("[A-Za-z0-9._-]+") || fileName.startsWith(".")) {
+            throw new DatabaseException("Invalid export file name '" + fileName + "'", null);
         }
+        return directory.resolve(EXPORT_DIRECTORY).resolve(fileName);
     }
 
-    public void ensurePlayerInitialized(String playerUuid) {
-        checkConnection();
-        String sql = "SELECT COUNT(*) FROM players WHERE player_uuid = ?";
-
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, playerUuid);
-            try (ResultSet result = statement.executeQuery()) {
-                if (result.next() && result.getInt(1) == 0) {
-                    initializePlayer(playerUuid);
-                }
+    private synchronized void evictCachedPlayers(SkillStore source, List<String> playerUuids) {
+        if (store != source) {
+            return;
+        }
+        for (String playerUuid : playerUuids) {
+            UUID uuid = PlayerIds.parseUuid(playerUuid);
+            if (uuid != null) {
+                profileCache.remove(uuid);
             }
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to check player initialization for UUID {}: {}", playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to check player initialization", e);
         }
     }
 
-    public void updatePlayerName(String playerUuid, String playerName) {
-        checkConnection();
-        String sql = "INSERT OR REPLACE INTO player_names (uuid, name, last_seen) VALUES (?, ?, ?)";
+    /**
+     * Returns group-commit counters for the current server session.
+     */
+    public DatabaseWriteStats.Snapshot getWriteStats() {
+        return store().getWriteStats();
+    }
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, playerUuid);
-            statement.setString(2, playerName);
-            statement.setLong(3, System.currentTimeMillis() / 1000); // Unix timestamp in seconds
-            statement.executeUpdate();
-            Simpleskills.LOGGER.debug("Updated player name for UUID {}: {}", playerUuid, playerName);
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to update player name for UUID {}: {}", playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to update player name", e);
+    /**
+     * Keeps the player's profile cached for as long as they are online. Call when a player joins.
+     */
+    public synchronized void playerJoined(String playerUuid) {
+        UUID uuid = PlayerIds.parseUuid(playerUuid);
+        if (uuid != null) {
+            profileCache.playerJoined(uuid);
         }
     }
 
-    public Map<String, SkillData> getAllSkills(String playerUuid) {
-        checkConnection();
-        if (skillCache.containsKey(playerUuid)) {
-            return Collections.unmodifiableMap(skillCache.get(playerUuid));
-        }
-
-        Map<String, SkillData> skills = new HashMap<>();
-        String sql = "SELECT skill_id, xp, level FROM player_skills WHERE player_uuid = ?";
-
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, playerUuid);
-            try (ResultSet result = statement.executeQuery()) {
-                while (result.next()) {
-                    String skillId = result.getString("skill_id");
-                    int xp = result.getInt("xp");
-                    int level = result.getInt("level");
-                    skills.put(skillId, new SkillData(xp, level));
-                }
-            }
-            skillCache.put(playerUuid, skills);
-            return Collections.unmodifiableMap(skills);
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to retrieve skills for UUID {}: {}", playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to retrieve skills", e);
+    /**
+     * Asks the store to commit the player's pending writes and drops their profile from the cache, so the
+     * cache only grows with the number of players online. Call when a player disconnects.
+     */
+    public synchronized void playerLeft(String playerUuid) {
+        SkillStore current = store;
+        if (current != null) {
+            // Not waited for, so a disconnect never blocks the server thread on a commit. Evicting right away is
+            // safe because SkillStore.loadProfile commits pending writes before reading (see loadProfile below)
+            current.requestFlush(playerUuid);
+        }
+        UUID uuid = PlayerIds.parseUuid(playerUuid);
+        if (uuid != null) {
+            profileCache.playerLeft(uuid);
         }
     }
 
-    public void savePlayerSkill(String playerUuid, String skillId, int xp, int level) {
-        checkConnection();
-        String sql = "INSERT OR REPLACE INTO player_skills (player_uuid, skill_id, xp, level) VALUES (?, ?, ?, ?)";
+    public synchronized void initializePlayer(String playerUuid) {
+        store().initializePlayer(playerUuid);
+        UUID uuid = PlayerIds.parseUuid(playerUuid);
+        if (uuid != null) {
+            profileCache.put(uuid, PlayerProfile.defaults());
+        }
+        markPlayerKnown(playerUuid);
+        Simpleskills.LOGGER.debug("Initialized player data for UUID: {}", playerUuid);
+    }
 
-        try {
-            connection.setAutoCommit(false);
-            try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                statement.setString(1, playerUuid);
-                statement.setString(2, skillId);
-                statement.setInt(3, xp);
-                statement.setInt(4, level);
-                statement.executeUpdate();
-            }
-            connection.commit();
-            // Update cache in-place
-            if (skillCache.containsKey(playerUuid)) {
-                skillCache.get(playerUuid).put(skillId, new SkillData(xp, level));
-                // Update total level cache
-                int total = 0;
-                for (SkillData data : skillCache.get(playerUuid).values()) {
-                    total += data.level();
-                }
-                totalLevelCache.put(playerUuid, total);
-            } else {
-                // Lazily initialize partial cache
-                Map<String, SkillData> skills = new HashMap<>();
-                skills.put(skillId, new SkillData(xp, level));
-                skillCache.put(playerUuid, skills);
-            }
-            Simpleskills.LOGGER.debug("Saved skill {} for UUID {}: {} XP, level {}", skillId, playerUuid, xp, level);
-        } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
-            }
-            Simpleskills.LOGGER.error("Failed to save skill {} for UUID {}: {}", skillId, playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to save skill data", e);
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
-            }
+    public void ensurePlayerInitialized(String playerUuid) {
+        if (isPlayerKnown(playerUuid)) {
+            return;
         }
+        ensurePlayerInitializedInStore(playerUuid);
     }
 
-    public void resetPlayerSkills(String playerUuid) {
-        checkConnection();
-        String sql = "UPDATE player_skills SET xp = 0, level = 1 WHERE player_uuid = ?";
+    private synchronized void ensurePlayerInitializedInStore(String playerUuid) {
+        if (store().playerExists(playerUuid)) {
+            markPlayerKnown(playerUuid);
+        } else {
+            initializePlayer(playerUuid);
+        }
+    }
 
-        try {
-            connection.setAutoCommit(false);
-            try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                statement.setString(1, playerUuid);
-                statement.executeUpdate();
-            }
-            connection.commit();
-            // Update cache in-place
-            if (skillCache.containsKey(playerUuid)) {
-                Map<String, SkillData> cachedSkills = skillCache.get(playerUuid);
-                for (String skill : SKILLS) {
-                    cachedSkills.put(skill, new SkillData(0, 1));
-                }
-                totalLevelCache.put(playerUuid, SKILLS.size());
-            }
-            Simpleskills.LOGGER.debug("Reset skills for UUID: {}", playerUuid);
-        } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
-            }
-            Simpleskills.LOGGER.error("Failed to reset skills for UUID {}: {}", playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to reset skills", e);
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+    /**
+     * Fills the known-player index from the store so ensurePlayerInitialized is a hash lookup.
+     */
+    private static void loadKnownPlayers(SkillStore source) {
+        int loaded;
+        synchronized (knownPlayers) {
+            knownPlayers.clear();
+            source.forEachPlayer(knownPlayers::add);
+            loaded = knownPlayers.size();
+        }
+        Simpleskills.LOGGER.debug("Loaded {} known players into the index.", loaded);
+    }
+
+    private static boolean isPlayerKnown(String playerUuid) {
+        UUID uuid = PlayerIds.parseUuid(playerUuid);
+        if (uuid == null) {
+            return false;
+        }
+        synchronized (knownPlayers) {
+            return knownPlayers.contains(uuid);
+        }
+    }
+
+    private static void markPlayerKnown(String playerUuid) {
+        UUID uuid = PlayerIds.parseUuid(playerUuid);
+        if (uuid != null) {
+            synchronized (knownPlayers) {
+                knownPlayers.add(uuid);
             }
         }
     }
 
+    // Anything that is not a real UUID simply bypasses the index and always hits the store
+    public void updatePlayerName(String playerUuid, String playerName) {
+        long lastSeen = System.currentTimeMillis() / 1000; // Unix timestamp in seconds
+        store().savePlayerName(playerUuid, playerName, lastSeen);
+        Simpleskills.LOGGER.debug("Updated player name for UUID {}: {}", playerUuid, playerName);
+    }
+
+    public Map<String, SkillData> getAllSkills(String playerUuid) {
+        return profile(playerUuid).skillMap();
+    }
+
+    /**
+     * Returns the player's XP in a skill, 0 if none is stored. Unlike getAllSkills this allocates nothing.
+     */
+    public int getSkillXp(String playerUuid, Skills skill) {
+        return profile(playerUuid).xp(skill);
+    }
+
+    /**
+     * Returns the player's level in a skill, or {@code defaultLevel} if none is stored.
+     */
+    public int getSkillLevel(String playerUuid, Skills skill, int defaultLevel) {
+        PlayerProfile profile = profile(playerUuid);
+        return profile.hasSkill(skill) ? profile.level(skill) : defaultLevel;
+    }
+
+    /**
+     * Returns the cached profile, loading it from the store on a miss. Safe on any thread: hits never lock,
+     * and misses load under this instance's lock.
+     */
+    private PlayerProfile profile(String playerUuid) {
+        UUID uuid = PlayerIds.parseUuid(playerUuid);
+        PlayerProfile cached = uuid == null ? null : profileCache.get(uuid);
+        return cached != null ? cached : loadProfile(playerUuid, uuid);
+    }
+
+    private PlayerProfile cachedProfile(String playerUuid) {
+        UUID uuid = PlayerIds.parseUuid(playerUuid);
+        return uuid == null ? null : profileCache.get(uuid);
+    }
+
+    /**
+     * Loads a player's whole profile from the store and caches it, so one miss serves skills, total level,
+     * prestige and both flags. Keys that are not UUIDs are read through without caching.
+     */
+    private synchronized PlayerProfile loadProfile(String playerUuid, UUID uuid) {
+        // Another thread may have loaded it while this one waited for the lock; a second copy would lose its changes
+        PlayerProfile cached = uuid == null ? null : profileCache.get(uuid);
+        if (cached != null) {
+            return cached;
+        }
+        // The store flushes first, so this sees writes still queued when playerLeft evicted the profile
+        SkillStore.Profile stored = store().loadProfile(playerUuid);
+        PlayerProfile profile = stored == null ? new PlayerProfile() : PlayerProfile.fromStore(stored);
+        if (uuid != null) {
+            profileCache.put(uuid, profile);
+        }
+        return profile;
+    }
+
+    public void savePlayerSkill(String playerUuid, String skillId, int xp, int level) {
+        Skills skill = PlayerProfile.skillFor(skillId);
+        PlayerProfile profile = null;
+        if (skill != null) {
+            profile = profile(playerUuid);
+            profile.setSkill(skill, xp, level);
+        } else {
+            Simpleskills.LOGGER.warn("Saving unknown skill {} for UUID {} without caching it.", skillId, playerUuid);
+        }
+        store().saveSkill(playerUuid, skillId, xp, level, profile != null && profile.hasAllSkills() ? profile : null);
+        Simpleskills.LOGGER.debug("Saved skill {} for UUID {}: {} XP, level {}", skillId, playerUuid, xp, level);
+    }
+
+    public void resetPlayerSkills(String playerUuid) {
+        store().resetSkills(playerUuid);
+        PlayerProfile cached = cachedProfile(playerUuid);
+        if (cached != null) {
+            cached.resetSkills();
+        }
+        Simpleskills.LOGGER.debug("Reset skills for UUID: {}", playerUuid);
+    }
+
     // Prestige API
     public int getPrestige(String playerUuid) {
-        checkConnection();
-        if (prestigeCache.containsKey(playerUuid)) {
-            return prestigeCache.get(playerUuid);
-        }
-        String sql = "SELECT prestige FROM players WHERE player_uuid = ?";
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, playerUuid);
-            try (ResultSet result = statement.executeQuery()) {
-                if (result.next()) {
-                    int prestige = result.getInt("prestige");
-                    prestigeCache.put(playerUuid, prestige);
-                    return prestige;
-                }
-            }
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to get prestige for UUID {}: {}", playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to get prestige", e);
-        }
-        return 0;
+        return profile(playerUuid).prestige();
     }
 
     public void setPrestige(String playerUuid, int prestige) {
-        checkConnection();
-        String sql = "UPDATE players SET prestige = ? WHERE player_uuid = ?";
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, prestige);
-            statement.setString(2, playerUuid);
-            statement.executeUpdate();
-            prestigeCache.put(playerUuid, prestige);
-            Simpleskills.LOGGER.debug("Set prestige to {} for UUID: {}", prestige, playerUuid);
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to set prestige for UUID {}: {}", playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to set prestige", e);
+        store().savePrestige(playerUuid, prestige);
+        PlayerProfile cached = cachedProfile(playerUuid);
+        if (cached != null) {
+            cached.setPrestige(prestige);
         }
+        Simpleskills.LOGGER.debug("Set prestige to {} for UUID: {}", prestige, playerUuid);
     }
 
     public void incrementPrestige(String playerUuid) {
@@ -373,353 +493,98 @@ public class DatabaseManager {
     }
 
     public void setIronmanMode(String playerUuid, boolean isIronman) {
-        checkConnection();
-        String sql = "UPDATE players SET is_ironman = ? WHERE player_uuid = ?";
-
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, isIronman ? 1 : 0);
-            statement.setString(2, playerUuid);
-            statement.executeUpdate();
-            ironmanCache.put(playerUuid, isIronman);
-            Simpleskills.LOGGER.debug("Set Ironman mode to {} for UUID: {}", isIronman, playerUuid);
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to set Ironman mode for UUID {}: {}", playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to set Ironman mode", e);
+        store().saveIronmanMode(playerUuid, isIronman);
+        PlayerProfile cached = cachedProfile(playerUuid);
+        if (cached != null) {
+            cached.setIronman(isIronman);
         }
+        Simpleskills.LOGGER.debug("Set Ironman mode to {} for UUID: {}", isIronman, playerUuid);
     }
 
     public boolean isPlayerInIronmanMode(String playerUuid) {
-        checkConnection();
-        if (ironmanCache.containsKey(playerUuid)) {
-            return ironmanCache.get(playerUuid);
-        }
-        String sql = "SELECT is_ironman FROM players WHERE player_uuid = ?";
-
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, playerUuid);
-            try (ResultSet result = statement.executeQuery()) {
-                if (result.next()) {
-                    boolean isIronman = result.getInt("is_ironman") == 1;
-                    ironmanCache.put(playerUuid, isIronman);
-                    return isIronman;
-                }
-            }
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to check Ironman mode for UUID {}: {}", playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to check Ironman mode", e);
-        }
-        return false;
+        return profile(playerUuid).ironman();
     }
 
     public void setTabMenuVisibility(String playerUuid, boolean isVisible) {
-        checkConnection();
-        String sql = "UPDATE players SET is_tab_menu_visible = ? WHERE player_uuid = ?";
-
-        try {
-            connection.setAutoCommit(false);
-            try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                statement.setInt(1, isVisible ? 1 : 0);
-                statement.setString(2, playerUuid);
-                statement.executeUpdate();
-                Simpleskills.LOGGER.debug("Set tab menu visibility to {} for UUID: {}", isVisible, playerUuid);
-            }
-            connection.commit();
-        } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
-            }
-            Simpleskills.LOGGER.error("Failed to set tab menu visibility for UUID {}: {}", playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to set tab menu visibility", e);
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
-            }
+        store().saveTabMenuVisibility(playerUuid, isVisible);
+        PlayerProfile cached = cachedProfile(playerUuid);
+        if (cached != null) {
+            cached.setTabMenuVisible(isVisible);
         }
+        Simpleskills.LOGGER.debug("Set tab menu visibility to {} for UUID: {}", isVisible, playerUuid);
     }
 
     public boolean isTabMenuVisible(String playerUuid) {
-        checkConnection();
-        String sql = "SELECT is_tab_menu_visible FROM players WHERE player_uuid = ?";
-
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, playerUuid);
-            try (ResultSet result = statement.executeQuery()) {
-                if (result.next()) {
-                    return result.getInt("is_tab_menu_visible") == 1;
-                }
-            }
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to check tab menu visibility for UUID {}: {}", playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to check tab menu visibility", e);
-        }
-        return true;
+        return profile(playerUuid).tabMenuVisible();
     }
 
     public int getTotalSkillLevel(String playerUuid) {
-        checkConnection();
-        if (totalLevelCache.containsKey(playerUuid)) {
-            return totalLevelCache.get(playerUuid);
-        }
-        String sql = "SELECT SUM(level) as total_level FROM player_skills WHERE player_uuid = ?";
-
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, playerUuid);
-            try (ResultSet result = statement.executeQuery()) {
-                if (result.next()) {
-                    int total = result.getInt("total_level");
-                    totalLevelCache.put(playerUuid, total);
-                    return total;
-                }
-            }
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to get total skill level for UUID {}: {}", playerUuid, e.getMessage());
-            throw new DatabaseException("Failed to get total skill level", e);
-        }
-        return 0;
+        return profile(playerUuid).totalLevel();
     }
 
     /**
-     * Gets all player UUIDs from the database.
+     * Gets all player UUIDs from the store.
      * Used for migration and administrative purposes.
      */
     public List<String> getAllPlayerUuids() {
-        checkConnection();
-        String sql = "SELECT DISTINCT player_uuid FROM player_skills";
         List<String> playerUuids = new ArrayList<>();
-
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            try (ResultSet result = statement.executeQuery()) {
-                while (result.next()) {
-                    playerUuids.add(result.getString("player_uuid"));
-                }
-            }
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to retrieve all player UUIDs: {}", e.getMessage());
-            throw new DatabaseException("Failed to retrieve all player UUIDs", e);
-        }
+        store().forEachPlayer(uuid -> playerUuids.add(uuid.toString()));
         return playerUuids;
     }
 
     public List<LeaderboardEntry> getSkillLeaderboard(String skillId, int limit) {
-        checkConnection();
-        String sql = """
-        SELECT p.player_uuid, ps.level, ps.xp, COALESCE(n.player_name, p.player_uuid) as player_name, p.prestige
-        FROM player_skills ps
-        JOIN players p ON ps.player_uuid = p.player_uuid
-        LEFT JOIN (
-            SELECT uuid, name as player_name
-            FROM player_names
-            WHERE (uuid, last_seen) IN (
-                SELECT uuid, MAX(last_seen)
-                FROM player_names
-                GROUP BY uuid
-            )
-        ) n ON p.player_uuid = n.uuid
-        WHERE ps.skill_id = ?
-        ORDER BY p.prestige DESC, ps.level DESC, ps.xp DESC
-        LIMIT ?
-    """;
-
-        List<LeaderboardEntry> leaderboard = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, skillId);
-            statement.setInt(2, limit);
-            try (ResultSet result = statement.executeQuery()) {
-                while (result.next()) {
-                    String playerUuid = result.getString("player_uuid");
-                    String playerName = result.getString("player_name");
-                    int level = result.getInt("level");
-                    int xp = result.getInt("xp");
-                    int prestige = result.getInt("prestige");
-                    leaderboard.add(new LeaderboardEntry(playerUuid, playerName, level, xp, prestige));
-                }
-            }
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to retrieve leaderboard for skill {}: {}", skillId, e.getMessage());
-            throw new DatabaseException("Failed to retrieve skill leaderboard", e);
-        }
-        return leaderboard;
+        return store().getSkillLeaderboard(skillId, limit, false);
     }
 
     public List<LeaderboardEntry> getTotalLevelLeaderboard(int limit) {
-        checkConnection();
-        String sql = """
-        SELECT p.player_uuid, SUM(ps.level) as total_level, COALESCE(n.player_name, p.player_uuid) as player_name, p.prestige
-        FROM player_skills ps
-        JOIN players p ON ps.player_uuid = p.player_uuid
-        LEFT JOIN (
-            SELECT uuid, name as player_name
-            FROM player_names
-            WHERE (uuid, last_seen) IN (
-                SELECT uuid, MAX(last_seen)
-                FROM player_names
-                GROUP BY uuid
-            )
-        ) n ON p.player_uuid = n.uuid
-        GROUP BY p.player_uuid
-        ORDER BY p.prestige DESC, total_level DESC
-        LIMIT ?
-    """;
-
-        List<LeaderboardEntry> leaderboard = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, limit);
-            try (ResultSet result = statement.executeQuery()) {
-                while (result.next()) {
-                    String playerUuid = result.getString("player_uuid");
-                    String playerName = result.getString("player_name");
-                    int totalLevel = result.getInt("total_level");
-                    int prestige = result.getInt("prestige");
-                    leaderboard.add(new LeaderboardEntry(playerUuid, playerName, totalLevel, 0, prestige));
-                }
-            }
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to retrieve total level leaderboard: {}", e.getMessage());
-            throw new DatabaseException("Failed to retrieve total level leaderboard", e);
-        }
-        return leaderboard;
+        return store().getTotalLevelLeaderboard(limit, false);
     }
 
     public List<LeaderboardEntry> getIronmanSkillLeaderboard(String skillId, int limit) {
-        checkConnection();
-        String sql = """
-        SELECT p.player_uuid, ps.level, ps.xp, COALESCE(n.player_name, p.player_uuid) as player_name, p.prestige
-        FROM player_skills ps
-        JOIN players p ON ps.player_uuid = p.player_uuid
-        LEFT JOIN (
-            SELECT uuid, name as player_name
-            FROM player_names
-            WHERE (uuid, last_seen) IN (
-                SELECT uuid, MAX(last_seen)
-                FROM player_names
-                GROUP BY uuid
-            )
-        ) n ON p.player_uuid = n.uuid
-        WHERE ps.skill_id = ? AND p.is_ironman = 1
-        ORDER BY p.prestige DESC, ps.level DESC, ps.xp DESC
-        LIMIT ?
-    """;
-
-        List<LeaderboardEntry> leaderboard = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, skillId);
-            statement.setInt(2, limit);
-            try (ResultSet result = statement.executeQuery()) {
-                while (result.next()) {
-                    String playerUuid = result.getString("player_uuid");
-                    String playerName = result.getString("player_name");
-                    int level = result.getInt("level");
-                    int xp = result.getInt("xp");
-                    int prestige = result.getInt("prestige");
-                    leaderboard.add(new LeaderboardEntry(playerUuid, playerName, level, xp, prestige));
-                }
-            }
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to retrieve Ironman leaderboard for skill {}: {}", skillId, e.getMessage());
-            throw new DatabaseException("Failed to retrieve Ironman skill leaderboard", e);
-        }
-        return leaderboard;
+        return store().getSkillLeaderboard(skillId, limit, true);
     }
 
     public List<LeaderboardEntry> getIronmanTotalLevelLeaderboard(int limit) {
-        checkConnection();
-        String sql = """
-        SELECT p.player_uuid, SUM(ps.level) as total_level, COALESCE(n.player_name, p.player_uuid) as player_name, p.prestige
-        FROM player_skills ps
-        JOIN players p ON ps.player_uuid = p.player_uuid
-        LEFT JOIN (
-            SELECT uuid, name as player_name
-            FROM player_names
-            WHERE (uuid, last_seen) IN (
-                SELECT uuid, MAX(last_seen)
-                FROM player_names
-                GROUP BY uuid
-            )
-        ) n ON p.player_uuid = n.uuid
-        WHERE p.is_ironman = 1
-        GROUP BY p.player_uuid
-        ORDER BY p.prestige DESC, total_level DESC
-        LIMIT ?
-    """;
-
-        List<LeaderboardEntry> leaderboard = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, limit);
-            try (ResultSet result = statement.executeQuery()) {
-                while (result.next()) {
-                    String playerUuid = result.getString("player_uuid");
-                    String playerName = result.getString("player_name");
-                    int totalLevel = result.getInt("total_level");
-                    int prestige = result.getInt("prestige");
-                    leaderboard.add(new LeaderboardEntry(playerUuid, playerName, totalLevel, 0, prestige));
-                }
-            }
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to retrieve Ironman total level leaderboard: {}", e.getMessage());
-            throw new DatabaseException("Failed to retrieve Ironman total level leaderboard", e);
-        }
-        return leaderboard;
+        return store().getTotalLevelLeaderboard(limit, true);
     }
 
-    private void reconnectIfNeeded() {
-        if (!isConnectionValid() && currentDatabasePath != null) {
-            Simpleskills.LOGGER.info("Reconnecting to database at {}", currentDatabasePath);
-            closeConnection();
-            try {
-                connection = DriverManager.getConnection("jdbc:sqlite:" + currentDatabasePath);
-                connection.setAutoCommit(true);
-                // Re-enable WAL mode after reconnect
-                try (PreparedStatement pragmaStmt = connection.prepareStatement("PRAGMA journal_mode=WAL;")) {
-                    pragmaStmt.execute();
-                }
-                createTables();
-                Simpleskills.LOGGER.info("Successfully reconnected to the database.");
-            } catch (SQLException e) {
-                Simpleskills.LOGGER.error("Failed to reconnect to the database: {}", e.getMessage());
-                throw new DatabaseException("Database reconnection failed", e);
-            }
-        }
+    /**
+     * Whether legacy rows are still being migrated in the background, so leaderboards may be incomplete.
+     */
+    public boolean isMigrationInProgress() {
+        return store().isMigrationInProgress();
     }
 
-    private void checkConnection() {
-        reconnectIfNeeded();
-        if (connection == null) {
-            Simpleskills.LOGGER.error("No database connection available.");
-            throw new DatabaseException("No database connection available", null);
-        }
+    /**
+     * Adds an XP grant to the XP history; a no-op unless database_xp_history_enabled is set.
+     */
+    public void recordXpGain(String playerUuid, String skillId, int xp) {
+        store().recordXpGain(playerUuid, skillId, xp, System.currentTimeMillis() / 1000);
     }
 
-    private void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-                Simpleskills.LOGGER.debug("Database connection closed.");
-            } catch (SQLException e) {
-                Simpleskills.LOGGER.error("Failed to close database connection: {}", e.getMessage());
-            }
-        }
+    /**
+     * Returns the player's hourly (or daily) XP per skill over the last {@code hours} hours, oldest first.
+     */
+    public List<SkillStore.XpBucket> getXpHistory(String playerUuid, int hours, boolean daily) {
+        return store().getXpHistory(playerUuid, daily, System.currentTimeMillis() / 1000 - hours * 3600L);
     }
 
     public void close() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                // Run PRAGMA optimize before closing
-                try (PreparedStatement optimizeStmt = connection.prepareStatement("PRAGMA optimize;")) {
-                    optimizeStmt.execute();
-                    Simpleskills.LOGGER.debug("Ran PRAGMA optimize on database.");
-                }
-            }
-            closeConnection();
-            currentDatabasePath = null;
-            skillCache.clear();
-            ironmanCache.clear();
-            totalLevelCache.clear();
-        } catch (SQLException e) {
-            Simpleskills.LOGGER.error("Failed to optimize or close database: {}", e.getMessage());
+        SkillStore current;
+        synchronized (this) {
+            current = store;
+            store = null;
+            dataDirectory = null;
+        }
+        // Closed outside this instance's lock so cache lookups are not blocked while the store drains
+        if (current != null) {
+            current.close();
+        }
+        synchronized (this) {
+            profileCache.clear();
+        }
+        synchronized (knownPlayers) {
+            knownPlayers.clear();
         }
     }
-}
\ No newline at end of file
+}
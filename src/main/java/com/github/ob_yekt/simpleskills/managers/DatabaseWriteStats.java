@@ -0,0 +1,70 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+/**
+ * Counters for {@link SqliteSkillStore}'s group commits: how many writes were folded into how many
+ * transactions, and how long each commit took. Every commit is one fsync, so writes minus commits is
+ * the number of fsyncs saved compared to committing each mutation on its own. Failed writes count the
+ * single writes that failed when a failing batch was retried one write at a time; dropped writes are the
+ * ones given up on after repeated failures.
+ */
+public class DatabaseWriteStats {
+    private long commits;
+    private long writes;
+    private long failures;
+    private long failedWrites;
+    private long droppedWrites;
+    private int largestBatch;
+    private long totalCommitNanos;
+    private long maxCommitNanos;
+
+    public record Snapshot(long commits, long writes, long failures, long failedWrites, long droppedWrites, int largestBatch,
+                           long totalCommitNanos, long maxCommitNanos) {
+        public double averageBatchSize() {
+            return commits == 0 ? 0.0 : (double) writes / commits;
+        }
+
+        public double averageCommitMillis() {
+            return commits == 0 ? 0.0 : totalCommitNanos / 1_000_000.0 / commits;
+        }
+
+        public double maxCommitMillis() {
+            return maxCommitNanos / 1_000_000.0;
+        }
+
+        public long fsyncsSaved() {
+            return writes - commits;
+        }
+
+        /**
+         * Totals of two independent writers, such as the shards of {@link ShardedSkillStore}.
+         */
+        public Snapshot combine(Snapshot other) {
+            return new Snapshot(commits + other.commits, writes + other.writes, failures + other.failures,
+                    failedWrites + other.failedWrites, droppedWrites + other.droppedWrites, Math.max(largestBatch, other.largestBatch), totalCommitNanos + other.totalCommitNanos,
+                    Math.max(maxCommitNanos, other.maxCommitNanos));
+        }
+    }
+
+    synchronized void recordCommit(int batchSize, long commitNanos) {
+        commits++;
+        writes += batchSize;
+        largestBatch = Math.max(largestBatch, batchSize);
+        totalCommitNanos += commitNanos;
+        maxCommitNanos = Math.max(maxCommitNanos, commitNanos);
+    }
+
+    synchronized void recordFailure() {
+        failures++;
+    }
+
+    synchronized void recordFailedWrite(boolean dropped) {
+        failedWrites++;
+        if (dropped) {
+            droppedWrites++;
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(commits, writes, failures, failedWrites, droppedWrites, largestBatch, totalCommitNanos, maxCommitNanos);
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The group commit behind {@link SqliteSkillStore}'s write-behind queue: the queued write types and how a
+ * drained batch is committed. Consecutive writes sharing a statement are sent as one JDBC batch, while the
+ * overall order is preserved.
+ * <p>
+ * A failed batch goes back to the queue with each write's failure count raised. Once a write has failed
+ * ISOLATE_AFTER_FAILURES times, its batch is run one write at a time under savepoints: the writes that succeed
+ * are committed, and the ones that fail are requeued until DROP_AFTER_FAILURES, then logged and dropped.
+ * The store drains and requeues; this class only runs the transaction.
+ */
+final class GroupCommit {
+    // A batch holding a write that failed this often is retried one write at a time, so a bad write cannot block the rest
+    static final int ISOLATE_AFTER_FAILURES = 3;
+    // A write that keeps failing on its own is logged and dropped once it has failed this often in total
+    static final int DROP_AFTER_FAILURES = 5;
+
+    /**
+     * Identifies what a queued mutation overwrites, so a newer write to the same target replaces the older one.
+     * The target is a skill ID for skill saves, or the column/operation name for everything else.
+     */
+    record WriteKey(String playerUuid, String target) {}
+
+    /**
+     * A queued mutation: the SQL to run, how to bind its parameters and how many flushes it has failed in.
+     */
+    record PendingWrite(String sql, StatementBinder binder, int failures) {
+        PendingWrite failed() {
+            return new PendingWrite(sql, binder, failures + 1);
+        }
+    }
+
+    /**
+     * Writes left out of an isolated batch: the ones to requeue with their raised failure count, and the dropped ones.
+     */
+    record IsolatedWrites(Map<WriteKey, PendingWrite> failed, Set<WriteKey> dropped) {
+        static final IsolatedWrites NONE = new IsolatedWrites(Map.of(), Set.of());
+
+        boolean affects(String playerUuid) {
+            for (WriteKey key : failed.keySet()) {
+                if (key.playerUuid().equals(playerUuid)) {
+                    return true;
+                }
+            }
+            for (WriteKey key : dropped) {
+                if (key.playerUuid().equals(playerUuid)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    interface StatementBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    /**
+     * The store's per-connection statement cache; returned statements must not be closed.
+     */
+    @FunctionalInterface
+    interface StatementSource {
+        PreparedStatement prepare(String sql) throws SQLException;
+    }
+
+    private GroupCommit() {}
+
+    static boolean needsIsolation(Map<WriteKey, PendingWrite> batch) {
+        for (PendingWrite write : batch.values()) {
+            if (write.failures() >= ISOLATE_AFTER_FAILURES) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The batch with every write's failure count raised, for requeueing after the whole transaction failed.
+     */
+    static Map<WriteKey, PendingWrite> failedBatch(Map<WriteKey, PendingWrite> batch) {
+        Map<WriteKey, PendingWrite> retry = new LinkedHashMap<>();
+        batch.forEach((key, write) -> retry.put(key, write.failed()));
+        return retry;
+    }
+
+    /**
+     * Runs one batch in a transaction, whole or one write at a time, and returns the writes left out of it.
+     * Rolls back and rethrows if the transaction itself fails.
+     */
+    static IsolatedWrites commit(Connection connection, StatementSource statements, Map<WriteKey, PendingWrite> batch,
+                                 boolean isolate, DatabaseWriteStats writeStats) throws SQLException {
+        long startNanos = System.nanoTime();
+        try {
+            connection.setAutoCommit(false);
+            IsolatedWrites uncommitted = isolate ? executeIsolated(connection, statements, batch, writeStats) : IsolatedWrites.NONE;
+            if (!isolate) {
+                executeBatched(statements, batch);
+            }
+            connection.commit();
+            long commitNanos = System.nanoTime() - startNanos;
+            writeStats.recordCommit(batch.size() - uncommitted.failed().size() - uncommitted.dropped().size(), commitNanos);
+            Simpleskills.LOGGER.debug("Group commit of {} writes took {} us.", batch.size(), commitNanos / 1000);
+            return uncommitted;
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            }
+            throw e;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void executeBatched(StatementSource statements, Map<WriteKey, PendingWrite> batch) throws SQLException {
+        PreparedStatement statement = null;
+        String statementSql = null;
+        for (PendingWrite write : batch.values()) {
+            if (!write.sql().equals(statementSql)) {
+                if (statement != null) {
+                    statement.executeBatch();
+                }
+                statement = statements.prepare(write.sql());
+                // A batch that failed halfway may still hold rows from the previous attempt
+                statement.clearBatch();
+                statementSql = write.sql();
+            }
+            write.binder().bind(statement);
+            statement.addBatch();
+        }
+        if (statement != null) {
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Runs each write under its own savepoint inside the current transaction and returns the ones that failed:
+     * those to retry, and those that reached DROP_AFTER_FAILURES and were logged and left out.
+     */
+    private static IsolatedWrites executeIsolated(Connection connection, StatementSource statements,
+                                                  Map<WriteKey, PendingWrite> batch, DatabaseWriteStats writeStats) throws SQLException {
+        Map<WriteKey, PendingWrite> failed = new LinkedHashMap<>();
+        Set<WriteKey> dropped = new HashSet<>();
+        for (Map.Entry<WriteKey, PendingWrite> entry : batch.entrySet()) {
+            WriteKey key = entry.getKey();
+            PendingWrite write = entry.getValue();
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                PreparedStatement statement = statements.prepare(write.sql());
+                statement.clearBatch();
+                write.binder().bind(statement);
+                statement.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                PendingWrite retried = write.failed();
+                boolean drop = retried.failures() >= DROP_AFTER_FAILURES;
+                writeStats.recordFailedWrite(drop);
+                if (drop) {
+                    dropped.add(key);
+                    Simpleskills.LOGGER.error("Dropping write '{}' for UUID {} after {} failed attempts: {}",
+                            key.target(), key.playerUuid(), retried.failures(), e.getMessage());
+                } else {
+                    failed.put(key, retried);
+                }
+            }
+        }
+        return new IsolatedWrites(failed, dropped);
+    }
+}
@@ -0,0 +1,287 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+import com.github.ob_yekt.simpleskills.Skills;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.LeaderboardEntry;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.SkillData;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A {@link SkillStore} that keeps everything on the heap and forgets it on close. Meant for tests and
+ * benchmarks, where it isolates DatabaseManager and its callers from disk I/O; select it with
+ * database_backend "memory".
+ */
+public final class InMemorySkillStore implements SkillStore {
+    private static final Comparator<LeaderboardEntry> LEADERBOARD_ORDER = Comparator
+            .comparingInt(LeaderboardEntry::prestige)
+            .thenComparingInt(LeaderboardEntry::level)
+            .thenComparingInt(LeaderboardEntry::xp)
+            .reversed();
+
+    private final Map<String, StoredPlayer> players = new HashMap<>();
+    private final Map<String, String> playerNames = new HashMap<>();
+    private final Map<String, Long> lastSeenByPlayer = new HashMap<>();
+    // XP history buckets, summed xp and gains per key; no raw events are kept
+    private final Map<BucketKey, long[]> hourlyXp = new HashMap<>();
+    private final Map<BucketKey, long[]> dailyXp = new HashMap<>();
+    private final DatabaseWriteStats writeStats = new DatabaseWriteStats();
+    private Path dataDirectory;
+
+    private static final class StoredPlayer {
+        private final Map<String, SkillData> skills = new HashMap<>();
+        private int prestige;
+        private boolean ironman;
+        private boolean tabMenuVisible = true;
+        // Only initialized players are visible to forEachPlayer and the leaderboards, as in the SQLite store
+        private boolean initialized;
+    }
+
+    private record BucketKey(String playerUuid, String skillId, long start) {}
+
+    @Override
+    public synchronized void open(Path dataDirectory) {
+        this.dataDirectory = dataDirectory;
+        Simpleskills.LOGGER.info("Using the in-memory skill store; player data will not be saved.");
+    }
+
+    @Override
+    public synchronized boolean isOpenAt(Path dataDirectory) {
+        return dataDirectory.equals(this.dataDirectory);
+    }
+
+    @Override
+    public synchronized void close() {
+        players.clear();
+        playerNames.clear();
+        lastSeenByPlayer.clear();
+        hourlyXp.clear();
+        dailyXp.clear();
+        dataDirectory = null;
+    }
+
+    @Override
+    public synchronized boolean playerExists(String playerUuid) {
+        StoredPlayer player = players.get(playerUuid);
+        return player != null && player.initialized;
+    }
+
+    @Override
+    public synchronized void initializePlayer(String playerUuid) {
+        StoredPlayer player = player(playerUuid);
+        player.initialized = true;
+        for (Skills skill : Skills.values()) {
+            player.skills.putIfAbsent(skill.getId(), new SkillData(0, 1));
+        }
+    }
+
+    @Override
+    public synchronized Profile loadProfile(String playerUuid) {
+        StoredPlayer player = players.get(playerUuid);
+        if (player == null) {
+            return null;
+        }
+        return new Profile(new HashMap<>(player.skills), player.prestige, player.ironman, player.tabMenuVisible);
+    }
+
+    @Override
+    public synchronized void saveSkill(String playerUuid, String skillId, int xp, int level, PlayerProfile profile) {
+        player(playerUuid).skills.put(skillId, new SkillData(xp, level));
+        writeStats.recordCommit(1, 0);
+    }
+
+    @Override
+    public synchronized void resetSkills(String playerUuid) {
+        StoredPlayer player = players.get(playerUuid);
+        if (player != null) {
+            player.skills.replaceAll((skillId, data) -> new SkillData(0, 1));
+            writeStats.recordCommit(1, 0);
+        }
+    }
+
+    @Override
+    public synchronized void savePrestige(String playerUuid, int prestige) {
+        player(playerUuid).prestige = prestige;
+        writeStats.recordCommit(1, 0);
+    }
+
+    @Override
+    public synchronized void saveIronmanMode(String playerUuid, boolean isIronman) {
+        player(playerUuid).ironman = isIronman;
+        writeStats.recordCommit(1, 0);
+    }
+
+    @Override
+    public synchronized void saveTabMenuVisibility(String playerUuid, boolean isVisible) {
+        player(playerUuid).tabMenuVisible = isVisible;
+        writeStats.recordCommit(1, 0);
+    }
+
+    @Override
+    public synchronized void savePlayerName(String playerUuid, String playerName, long lastSeen) {
+        playerNames.put(playerUuid, playerName);
+        lastSeenByPlayer.merge(playerUuid, lastSeen, Math::max);
+        writeStats.recordCommit(1, 0);
+    }
+
+    @Override
+    public void requestFlush(String playerUuid) {
+        // Nothing is ever pending
+    }
+
+    @Override
+    public synchronized List<LeaderboardEntry> getSkillLeaderboard(String skillId, int limit, boolean ironmanOnly) {
+        List<LeaderboardEntry> leaderboard = new ArrayList<>();
+        for (Map.Entry<String, StoredPlayer> entry : players.entrySet()) {
+            StoredPlayer player = entry.getValue();
+            SkillData data = player.skills.get(skillId);
+            if (data != null && player.initialized && (!ironmanOnly || player.ironman)) {
+                leaderboard.add(new LeaderboardEntry(entry.getKey(), playerNames.getOrDefault(entry.getKey(), entry.getKey()),
+                        data.level(), data.xp(), player.prestige));
+            }
+        }
+        return topEntries(leaderboard, limit);
+    }
+
+    @Override
+    public synchronized List<LeaderboardEntry> getTotalLevelLeaderboard(int limit, boolean ironmanOnly) {
+        List<LeaderboardEntry> leaderboard = new ArrayList<>();
+        for (Map.Entry<String, StoredPlayer> entry : players.entrySet()) {
+            StoredPlayer player = entry.getValue();
+            if (player.skills.isEmpty() || !player.initialized || (ironmanOnly && !player.ironman)) {
+                continue;
+            }
+            int totalLevel = 0;
+            for (SkillData data : player.skills.values()) {
+                totalLevel += data.level();
+            }
+            leaderboard.add(new LeaderboardEntry(entry.getKey(), playerNames.getOrDefault(entry.getKey(), entry.getKey()),
+                    totalLevel, 0, player.prestige));
+        }
+        return topEntries(leaderboard, limit);
+    }
+
+    private static List<LeaderboardEntry> topEntries(List<LeaderboardEntry> entries, int limit) {
+        entries.sort(LEADERBOARD_ORDER);
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, Math.max(0, limit))) : entries;
+    }
+
+    @Override
+    public synchronized void recordXpGain(String playerUuid, String skillId, int xp, long timestamp) {
+        addToBucket(hourlyXp, new BucketKey(playerUuid, skillId, timestamp / XpHistory.HOUR_SECONDS * XpHistory.HOUR_SECONDS), xp);
+        addToBucket(dailyXp, new BucketKey(playerUuid, skillId, timestamp / XpHistory.DAY_SECONDS * XpHistory.DAY_SECONDS), xp);
+    }
+
+    private static void addToBucket(Map<BucketKey, long[]> buckets, BucketKey key, int xp) {
+        long[] totals = buckets.computeIfAbsent(key, k -> new long[2]);
+        totals[0] += xp;
+        totals[1]++;
+    }
+
+    @Override
+    public synchronized List<XpBucket> getXpHistory(String playerUuid, boolean daily, long since) {
+        List<XpBucket> history = new ArrayList<>();
+        for (Map.Entry<BucketKey, long[]> entry : (daily ? dailyXp : hourlyXp).entrySet()) {
+            BucketKey key = entry.getKey();
+            if (key.playerUuid().equals(playerUuid) && key.start() >= since) {
+                history.add(new XpBucket(key.skillId(), key.start(), entry.getValue()[0], entry.getValue()[1]));
+            }
+        }
+        history.sort(Comparator.comparingLong(XpBucket::start).thenComparing(XpBucket::skillId));
+        return history;
+    }
+
+    @Override
+    public void forEachPlayer(Consumer<UUID> action) {
+        List<UUID> uuids = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, StoredPlayer> entry : players.entrySet()) {
+                if (entry.getValue().initialized) {
+                    try {
+                        uuids.add(UUID.fromString(entry.getKey()));
+                    } catch (IllegalArgumentException e) {
+                        // Not a real UUID; skipped like in the SQLite store
+                    }
+                }
+            }
+        }
+        uuids.forEach(action);
+    }
+
+    @Override
+    public void forEachProfile(int limit, BiConsumer<String, Profile> action) {
+        List<Map.Entry<String, Profile>> profiles = new ArrayList<>();
+        synchronized (this) {
+            List<String> uuids = new ArrayList<>();
+            for (Map.Entry<String, StoredPlayer> entry : players.entrySet()) {
+                if (entry.getValue().initialized) {
+                    uuids.add(entry.getKey());
+                }
+            }
+            uuids.sort(Comparator.comparingLong((String uuid) -> lastSeenByPlayer.getOrDefault(uuid, Long.MIN_VALUE)).reversed());
+            for (String uuid : limit > 0 && uuids.size() > limit ? uuids.subList(0, limit) : uuids) {
+                profiles.add(Map.entry(uuid, loadProfile(uuid)));
+            }
+        }
+        profiles.forEach(entry -> action.accept(entry.getKey(), entry.getValue()));
+    }
+
+    @Override
+    public void forEachPlayerName(Consumer<PlayerName> action) {
+        List<PlayerName> names = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, String> entry : playerNames.entrySet()) {
+                names.add(new PlayerName(entry.getKey(), entry.getValue(), lastSeenByPlayer.getOrDefault(entry.getKey(), 0L)));
+            }
+        }
+        names.forEach(action);
+    }
+
+    @Override
+    public synchronized void importChunk(Map<String, Profile> profiles, List<PlayerName> names) {
+        for (Map.Entry<String, Profile> entry : profiles.entrySet()) {
+            StoredPlayer player = player(entry.getKey());
+            Profile profile = entry.getValue();
+            player.initialized = true;
+            player.skills.putAll(profile.skills());
+            player.prestige = profile.prestige();
+            player.ironman = profile.ironman();
+            player.tabMenuVisible = profile.tabMenuVisible();
+        }
+        for (PlayerName name : names) {
+            if (name.lastSeen() >= lastSeenByPlayer.getOrDefault(name.playerUuid(), Long.MIN_VALUE)) {
+                playerNames.put(name.playerUuid(), name.name());
+                lastSeenByPlayer.put(name.playerUuid(), name.lastSeen());
+            }
+        }
+        writeStats.recordCommit(profiles.size() + names.size(), 0);
+    }
+
+    @Override
+    public CompletableFuture<Path> backup() {
+        return CompletableFuture.failedFuture(new DatabaseManager.DatabaseException("The in-memory store has nothing to back up", null));
+    }
+
+    @Override
+    public DatabaseWriteStats.Snapshot getWriteStats() {
+        return writeStats.snapshot();
+    }
+
+    @Override
+    public boolean isMigrationInProgress() {
+        return false;
+    }
+
+    private StoredPlayer player(String playerUuid) {
+        return players.computeIfAbsent(playerUuid, uuid -> new StoredPlayer());
+    }
+}
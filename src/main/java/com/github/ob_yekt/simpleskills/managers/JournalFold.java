@@ -0,0 +1,98 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+import com.github.ob_yekt.simpleskills.Skills;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Folds sealed {@link XpJournal} segments into the skill tables of {@link SqliteSkillStore}. Only the latest
+ * record per player and skill is written, in one transaction per segment, and the segment is released once
+ * that transaction has committed, so a crash before then replays it on the next start.
+ */
+final class JournalFold {
+    /**
+     * A journaled skill save; later records for the same key replace earlier ones when folding.
+     */
+    private record JournalKey(UUID player, int skill) {}
+
+    private JournalFold() {}
+
+    /**
+     * Writes a sealed segment in either storage layout, frees it and returns how many records it held.
+     * Rolls back and rethrows if the transaction fails, leaving the segment to be folded again.
+     */
+    static int foldSegment(Connection connection, GroupCommit.StatementSource statements, XpJournal journal, int segment,
+                           boolean wideLayout, Map<Integer, String> skillNamesByOrdinal, DatabaseWriteStats writeStats) throws SQLException {
+        Map<JournalKey, int[]> latest = new LinkedHashMap<>();
+        int[] records = new int[1];
+        journal.forEachRecord(segment, (player, skill, xp, level, timestamp) -> {
+            latest.put(new JournalKey(player, skill), new int[]{xp, level});
+            records[0]++;
+        });
+
+        long startNanos = System.nanoTime();
+        try {
+            connection.setAutoCommit(false);
+            Map<String, PreparedStatement> batches = new LinkedHashMap<>();
+            for (Map.Entry<JournalKey, int[]> entry : latest.entrySet()) {
+                byte[] playerId = PlayerIds.playerId(entry.getKey().player());
+                int[] values = entry.getValue();
+                String sql;
+                if (wideLayout) {
+                    String skillId = skillNamesByOrdinal.get(entry.getKey().skill());
+                    Skills skill = skillId == null ? null : WideProfileSchema.skillFor(skillId);
+                    if (skill == null) {
+                        continue; // The skill no longer exists
+                    }
+                    sql = WideProfileSchema.upsertSkillSql(skill);
+                } else {
+                    sql = SqliteSkillStore.SAVE_SKILL_SQL;
+                }
+                PreparedStatement statement = batches.get(sql);
+                if (statement == null) {
+                    statement = statements.prepare(sql);
+                    // A batch that failed halfway may still hold rows from the previous attempt
+                    statement.clearBatch();
+                    batches.put(sql, statement);
+                }
+                int index = 1;
+                statement.setBytes(index++, playerId);
+                if (!wideLayout) {
+                    statement.setInt(index++, entry.getKey().skill());
+                }
+                statement.setInt(index++, values[0]);
+                statement.setInt(index, values[1]);
+                statement.addBatch();
+            }
+            for (PreparedStatement statement : batches.values()) {
+                statement.executeBatch();
+            }
+            connection.commit();
+            journal.release(segment);
+            long commitNanos = System.nanoTime() - startNanos;
+            writeStats.recordCommit(latest.size(), commitNanos);
+            Simpleskills.LOGGER.debug("Folded {} journal records into {} rows in {} us.", records[0], latest.size(), commitNanos / 1000);
+            return records[0];
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            }
+            Simpleskills.LOGGER.error("Failed to fold {} journal records: {}", records[0], e.getMessage());
+            throw e;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+            }
+        }
+    }
+}
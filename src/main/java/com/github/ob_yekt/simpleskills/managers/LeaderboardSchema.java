@@ -0,0 +1,222 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Skills;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * SQL for the denormalized leaderboard tables used by {@link SqliteSkillStore}. leaderboard_skill holds one
+ * row per player and skill and leaderboard_total one row per player, each next to the player's prestige and
+ * Ironman flag and indexed in leaderboard order, so a top-N query is an index range scan instead of a join
+ * and aggregate over every player.
+ * <p>
+ * Triggers on the tables of the active storage layout keep them current inside the same transaction as every
+ * save, whichever path it takes (group commit, journal fold, reset, legacy migration). Layout conversion drops
+ * the triggers and rebuilds the tables afterwards instead.
+ */
+final class LeaderboardSchema {
+    static final String TRIGGER_PREFIX = "leaderboard_";
+    // Upserts rather than INSERT OR REPLACE: inside a trigger the outer statement's conflict policy wins,
+    // and the wide layout's own upserts would turn a REPLACE into an abort
+    private static final String SKILL_UPSERT = """
+            ON CONFLICT(player_id, skill) DO UPDATE SET prestige = excluded.prestige, is_ironman = excluded.is_ironman,
+                level = excluded.level, xp = excluded.xp""";
+    private static final String TOTAL_UPSERT = """
+            ON CONFLICT(player_id) DO UPDATE SET prestige = excluded.prestige, is_ironman = excluded.is_ironman,
+                total_level = excluded.total_level""";
+
+    private LeaderboardSchema() {} // Utility class
+
+    static List<String> createTablesSql() {
+        return List.of("""
+        CREATE TABLE IF NOT EXISTS leaderboard_skill (
+            player_id BLOB NOT NULL,
+            skill INTEGER NOT NULL,
+            prestige INTEGER NOT NULL DEFAULT 0,
+            is_ironman INTEGER NOT NULL DEFAULT 0,
+            level INTEGER NOT NULL,
+            xp INTEGER NOT NULL,
+            PRIMARY KEY (player_id, skill)
+        ) WITHOUT ROWID
+    """, """
+        CREATE TABLE IF NOT EXISTS leaderboard_total (
+            player_id BLOB PRIMARY KEY,
+            prestige INTEGER NOT NULL DEFAULT 0,
+            is_ironman INTEGER NOT NULL DEFAULT 0,
+            total_level INTEGER NOT NULL
+        ) WITHOUT ROWID
+    """,
+                "CREATE INDEX IF NOT EXISTS leaderboard_skill_rank ON leaderboard_skill (skill, prestige, level, xp)",
+                "CREATE INDEX IF NOT EXISTS leaderboard_skill_ironman_rank ON leaderboard_skill (skill, prestige, level, xp) WHERE is_ironman = 1",
+                "CREATE INDEX IF NOT EXISTS leaderboard_total_rank ON leaderboard_total (prestige, total_level)",
+                "CREATE INDEX IF NOT EXISTS leaderboard_total_ironman_rank ON leaderboard_total (prestige, total_level) WHERE is_ironman = 1");
+    }
+
+    /**
+     * Triggers for the compact layout. Skill rows are only ever written with INSERT OR REPLACE/IGNORE, so
+     * insert triggers are enough; like the old join, only players with a players row are ranked.
+     */
+    static List<String> compactTriggersSql(String uuidToBlob) {
+        String playerText = WideProfileSchema.uuidText("NEW.player_id");
+        String playerBlob = uuidToBlob.formatted("NEW.player_uuid");
+        return List.of("""
+        CREATE TRIGGER leaderboard_skill_saved AFTER INSERT ON player_skills_v2 BEGIN
+            INSERT INTO leaderboard_skill (player_id, skill, prestige, is_ironman, level, xp)
+            SELECT NEW.player_id, NEW.skill, COALESCE(p.prestige, 0), COALESCE(p.is_ironman, 0), NEW.level, NEW.xp
+            FROM players p WHERE p.player_uuid = %1$s
+            %2$s;
+            INSERT INTO leaderboard_total (player_id, prestige, is_ironman, total_level)
+            SELECT NEW.player_id, COALESCE(p.prestige, 0), COALESCE(p.is_ironman, 0),
+                (SELECT SUM(level) FROM player_skills_v2 WHERE player_id = NEW.player_id)
+            FROM players p WHERE p.player_uuid = %1$s
+            %3$s;
+        END
+    """.formatted(playerText, SKILL_UPSERT, TOTAL_UPSERT), """
+        CREATE TRIGGER leaderboard_player_added AFTER INSERT ON players BEGIN
+            INSERT INTO leaderboard_skill (player_id, skill, prestige, is_ironman, level, xp)
+            SELECT player_id, skill, COALESCE(NEW.prestige, 0), COALESCE(NEW.is_ironman, 0), level, xp
+            FROM player_skills_v2 WHERE player_id = %1$s
+            %2$s;
+            INSERT INTO leaderboard_total (player_id, prestige, is_ironman, total_level)
+            SELECT player_id, COALESCE(NEW.prestige, 0), COALESCE(NEW.is_ironman, 0), SUM(level)
+            FROM player_skills_v2 WHERE player_id = %1$s GROUP BY player_id
+            %3$s;
+        END
+    """.formatted(playerBlob, SKILL_UPSERT, TOTAL_UPSERT), """
+        CREATE TRIGGER leaderboard_player_flags AFTER UPDATE OF prestige, is_ironman ON players BEGIN
+            UPDATE leaderboard_skill SET prestige = COALESCE(NEW.prestige, 0), is_ironman = COALESCE(NEW.is_ironman, 0)
+            WHERE player_id = %1$s;
+            UPDATE leaderboard_total SET prestige = COALESCE(NEW.prestige, 0), is_ironman = COALESCE(NEW.is_ironman, 0)
+            WHERE player_id = %1$s;
+        END
+    """.formatted(playerBlob));
+    }
+
+    /**
+     * Triggers for the wide layout. Updates only touch the leaderboard rows of skills whose values changed,
+     * so saving a whole profile after a single XP gain rewrites one skill row and the total.
+     */
+    static List<String> wideTriggersSql(Map<String, Integer> skillOrdinals) {
+        List<String> statements = new ArrayList<>();
+        StringJoiner insertedSkills = new StringJoiner(",\n                ");
+        for (Skills skill : Skills.values()) {
+            insertedSkills.add(skillRowValues(skill, skillOrdinals.get(skill.getId())));
+        }
+        statements.add("""
+        CREATE TRIGGER leaderboard_profile_added AFTER INSERT ON player_profiles BEGIN
+            INSERT INTO leaderboard_skill (player_id, skill, prestige, is_ironman, level, xp) VALUES
+                %s
+            %s;
+            INSERT INTO leaderboard_total (player_id, prestige, is_ironman, total_level)
+            VALUES (NEW.player_id, NEW.prestige, NEW.is_ironman, %s)
+            %s;
+        END
+    """.formatted(insertedSkills, SKILL_UPSERT, WideProfileSchema.totalLevelExpression("NEW."), TOTAL_UPSERT));
+        for (Skills skill : Skills.values()) {
+            String xp = WideProfileSchema.xpColumn(skill);
+            String level = WideProfileSchema.levelColumn(skill);
+            statements.add("""
+        CREATE TRIGGER leaderboard_profile_%1$s AFTER UPDATE OF %2$s, %3$s ON player_profiles
+        WHEN OLD.%2$s IS NOT NEW.%2$s OR OLD.%3$s IS NOT NEW.%3$s BEGIN
+            INSERT INTO leaderboard_skill (player_id, skill, prestige, is_ironman, level, xp) VALUES %4$s
+            %5$s;
+        END
+    """.formatted(skill.getId().toLowerCase(Locale.ROOT), xp, level, skillRowValues(skill, skillOrdinals.get(skill.getId())), SKILL_UPSERT));
+        }
+        statements.add("""
+        CREATE TRIGGER leaderboard_profile_total AFTER UPDATE ON player_profiles
+        WHEN %1$s IS NOT %2$s OR OLD.prestige IS NOT NEW.prestige OR OLD.is_ironman IS NOT NEW.is_ironman BEGIN
+            INSERT INTO leaderboard_total (player_id, prestige, is_ironman, total_level)
+            VALUES (NEW.player_id, NEW.prestige, NEW.is_ironman, %2$s)
+            %3$s;
+        END
+    """.formatted(WideProfileSchema.totalLevelExpression("OLD."), WideProfileSchema.totalLevelExpression("NEW."), TOTAL_UPSERT));
+        statements.add("""
+        CREATE TRIGGER leaderboard_profile_flags AFTER UPDATE OF prestige, is_ironman ON player_profiles
+        WHEN OLD.prestige IS NOT NEW.prestige OR OLD.is_ironman IS NOT NEW.is_ironman BEGIN
+            UPDATE leaderboard_skill SET prestige = NEW.prestige, is_ironman = NEW.is_ironman WHERE player_id = NEW.player_id;
+        END
+    """);
+        return statements;
+    }
+
+    private static String skillRowValues(Skills skill, int ordinal) {
+        return "(NEW.player_id, %d, NEW.prestige, NEW.is_ironman, NEW.%s, NEW.%s)"
+                .formatted(ordinal, WideProfileSchema.levelColumn(skill), WideProfileSchema.xpColumn(skill));
+    }
+
+    /**
+     * Refills both tables from the compact layout.
+     */
+    static List<String> rebuildFromCompactSql() {
+        return List.of(
+                "DELETE FROM leaderboard_skill",
+                "DELETE FROM leaderboard_total",
+                """
+        INSERT INTO leaderboard_skill (player_id, skill, prestige, is_ironman, level, xp)
+        SELECT s.player_id, s.skill, COALESCE(p.prestige, 0), COALESCE(p.is_ironman, 0), s.level, s.xp
+        FROM player_skills_v2 s
+        JOIN players p ON p.player_uuid = %s""".formatted(WideProfileSchema.uuidText("s.player_id")),
+                """
+        INSERT INTO leaderboard_total (player_id, prestige, is_ironman, total_level)
+        SELECT player_id, MAX(prestige), MAX(is_ironman), SUM(level)
+        FROM leaderboard_skill
+        GROUP BY player_id""");
+    }
+
+    /**
+     * Refills both tables from the wide layout.
+     */
+    static List<String> rebuildFromWideSql(Map<String, Integer> skillOrdinals) {
+        List<String> statements = new ArrayList<>();
+        statements.add("DELETE FROM leaderboard_skill");
+        statements.add("DELETE FROM leaderboard_total");
+        for (Skills skill : Skills.values()) {
+            statements.add("""
+        INSERT INTO leaderboard_skill (player_id, skill, prestige, is_ironman, level, xp)
+        SELECT player_id, %d, prestige, is_ironman, %s, %s
+        FROM player_profiles""".formatted(skillOrdinals.get(skill.getId()), WideProfileSchema.levelColumn(skill), WideProfileSchema.xpColumn(skill)));
+        }
+        statements.add("""
+        INSERT INTO leaderboard_total (player_id, prestige, is_ironman, total_level)
+        SELECT player_id, prestige, is_ironman, %s
+        FROM player_profiles""".formatted(WideProfileSchema.totalLevelExpression("")));
+        return statements;
+    }
+
+    /**
+     * Top-N for one skill; binds the skill ordinal and the limit.
+     */
+    static String skillLeaderboardSql(boolean ironmanOnly) {
+        return """
+        SELECT %1$s as player_uuid, l.level, l.xp, COALESCE(n.name, %1$s) as player_name, l.prestige
+        FROM leaderboard_skill l
+        %2$s
+        WHERE l.skill = ?%3$s
+        ORDER BY l.prestige DESC, l.level DESC, l.xp DESC
+        LIMIT ?
+    """.formatted(WideProfileSchema.uuidText("l.player_id"), latestNameJoin(), ironmanOnly ? " AND l.is_ironman = 1" : "");
+    }
+
+    /**
+     * Top-N by total level; binds the limit.
+     */
+    static String totalLevelLeaderboardSql(boolean ironmanOnly) {
+        return """
+        SELECT %1$s as player_uuid, l.total_level, COALESCE(n.name, %1$s) as player_name, l.prestige
+        FROM leaderboard_total l
+        %2$s
+        %3$s
+        ORDER BY l.prestige DESC, l.total_level DESC
+        LIMIT ?
+    """.formatted(WideProfileSchema.uuidText("l.player_id"), latestNameJoin(), ironmanOnly ? "WHERE l.is_ironman = 1" : "");
+    }
+
+    private static String latestNameJoin() {
+        return "LEFT JOIN player_current_name n ON n.uuid = " + WideProfileSchema.uuidText("l.player_id");
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.DatabaseException;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Conversions between player UUID strings and the 16-byte player_id keys of the compact and wide layouts,
+ * shared by {@link DatabaseManager}, {@link SqliteSkillStore} and {@link UnshardedDatabaseReader}.
+ */
+final class PlayerIds {
+    // Converts a dashed TEXT UUID from players/player_names into the 16-byte player_id key
+    static final String UUID_TO_BLOB_SQL = "unhex(replace(%s, '-', ''))";
+
+    private PlayerIds() {}
+
+    /**
+     * Returns the UUID, or null if the string is not one.
+     */
+    static UUID parseUuid(String playerUuid) {
+        try {
+            return UUID.fromString(playerUuid);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the player_id key for a UUID string. Throws a DatabaseException if it is not a UUID.
+     */
+    static byte[] playerId(String playerUuid) {
+        UUID uuid = parseUuid(playerUuid);
+        if (uuid == null) {
+            throw new DatabaseException("Invalid player UUID: " + playerUuid, null);
+        }
+        return playerId(uuid);
+    }
+
+    static byte[] playerId(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Returns the UUID of a player_id key, or null if the value is not 16 bytes.
+     */
+    static UUID uuidFromId(byte[] playerId) {
+        if (playerId == null || playerId.length != 16) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(playerId);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import java.util.List;
+
+/**
+ * SQL for player names in {@link SqliteSkillStore}. player_current_name holds one row per player and is what
+ * the leaderboards join; saves write only to it. Triggers copy each name change into player_names and trim
+ * that history to the newest entries, so it no longer grows by a row per login.
+ */
+final class PlayerNameSchema {
+    static final String TRIGGER_PREFIX = "player_name_";
+
+    private PlayerNameSchema() {} // Utility class
+
+    static String createTableSql() {
+        return """
+        CREATE TABLE IF NOT EXISTS player_current_name (
+            uuid TEXT PRIMARY KEY,
+            name TEXT NOT NULL,
+            last_seen INTEGER NOT NULL
+        ) WITHOUT ROWID
+    """;
+    }
+
+    /**
+     * Binds uuid, name and last_seen. An older timestamp never overwrites a newer name.
+     */
+    static String saveNameSql() {
+        return """
+        INSERT INTO player_current_name (uuid, name, last_seen) VALUES (?, ?, ?)
+        ON CONFLICT(uuid) DO UPDATE SET name = excluded.name, last_seen = excluded.last_seen
+        WHERE excluded.last_seen >= player_current_name.last_seen""";
+    }
+
+    /**
+     * Triggers that record name changes in player_names, keeping at most historyLimit rows per player.
+     */
+    static List<String> triggersSql(int historyLimit) {
+        // Upsert, since inside a trigger the outer upsert's conflict policy would override OR REPLACE
+        String recordName = """
+            INSERT INTO player_names (uuid, name, last_seen) VALUES (NEW.uuid, NEW.name, NEW.last_seen)
+            ON CONFLICT(uuid, last_seen) DO UPDATE SET name = excluded.name;
+            DELETE FROM player_names WHERE uuid = NEW.uuid AND last_seen < (
+                SELECT last_seen FROM player_names WHERE uuid = NEW.uuid
+                ORDER BY last_seen DESC LIMIT 1 OFFSET %d
+            );""".formatted(Math.max(1, historyLimit) - 1);
+        return List.of("""
+        CREATE TRIGGER player_name_added AFTER INSERT ON player_current_name BEGIN
+        %s
+        END
+    """.formatted(recordName), """
+        CREATE TRIGGER player_name_changed AFTER UPDATE OF name ON player_current_name
+        WHEN OLD.name IS NOT NEW.name BEGIN
+        %s
+        END
+    """.formatted(recordName));
+    }
+
+    /**
+     * One-time compaction of a player_names table written before player_current_name existed: fills the
+     * current names, drops rows that only repeat the previous name, then trims each player to historyLimit rows.
+     */
+    static List<String> compactHistorySql(int historyLimit) {
+        return List.of("""
+        INSERT OR REPLACE INTO player_current_name (uuid, name, last_seen)
+        SELECT uuid, name, last_seen FROM (
+            SELECT uuid, name, last_seen, ROW_NUMBER() OVER (PARTITION BY uuid ORDER BY last_seen DESC) AS position
+            FROM player_names
+            WHERE name IS NOT NULL AND last_seen IS NOT NULL
+        ) WHERE position = 1""", """
+        DELETE FROM player_names WHERE rowid IN (
+            SELECT rowid FROM (
+                SELECT rowid, name, LAG(name) OVER (PARTITION BY uuid ORDER BY last_seen) AS previous_name
+                FROM player_names
+            ) WHERE name IS previous_name
+        )""", """
+        DELETE FROM player_names WHERE rowid IN (
+            SELECT rowid FROM (
+                SELECT rowid, ROW_NUMBER() OVER (PARTITION BY uuid ORDER BY last_seen DESC) AS position
+                FROM player_names
+            ) WHERE position > %d
+        )""".formatted(Math.max(1, historyLimit)));
+    }
+}
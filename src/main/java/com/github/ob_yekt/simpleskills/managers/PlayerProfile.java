@@ -0,0 +1,200 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Skills;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.SkillData;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A cached player's skills and settings, as {@link DatabaseManager} holds them. XP and levels live in
+ * primitive arrays indexed by {@link Skills#ordinal()} and the total level is kept up to date on every
+ * change, so reads are array loads and an XP update allocates nothing.
+ * <p>
+ * A profile may lack some skills when the store had no rows for them; {@link #hasSkill} tells them apart
+ * from skills stored at level 0.
+ * <p>
+ * Safe to read from any thread without blocking. Changes take a {@link StampedLock} write lock and publish
+ * every value with release semantics: the single-value getters are volatile or acquire loads that never
+ * touch the lock, and {@link #skillMap} copies under an optimistic read that retries if a change happened
+ * meanwhile, so the HUD or an async leaderboard never sees half of an update and never waits for one.
+ */
+public final class PlayerProfile {
+    private static final Skills[] SKILLS = Skills.values();
+    private static final Map<String, Skills> SKILLS_BY_ID = new HashMap<>();
+    private static final int ALL_SKILLS = (1 << SKILLS.length) - 1;
+    // Acquire loads and release stores of single xp and level entries
+    private static final VarHandle INT_ARRAY = MethodHandles.arrayElementVarHandle(int[].class);
+
+    static {
+        for (Skills skill : SKILLS) {
+            SKILLS_BY_ID.put(skill.getId(), skill);
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private final int[] xp = new int[SKILLS.length];
+    private final int[] level = new int[SKILLS.length];
+    // One bit per Skills.ordinal() for the skills that hold a value
+    private volatile int storedSkills;
+    private volatile int totalLevel;
+    private volatile int prestige;
+    private volatile boolean ironman;
+    private volatile boolean tabMenuVisible = true;
+
+    /**
+     * A profile with no skills and default settings, for players with nothing stored.
+     */
+    PlayerProfile() {}
+
+    /**
+     * A freshly initialized player: every skill at level 1 with no XP.
+     */
+    static PlayerProfile defaults() {
+        PlayerProfile profile = new PlayerProfile();
+        profile.resetSkills();
+        return profile;
+    }
+
+    /**
+     * Copies a profile read from the store. Skills that no longer exist are left out.
+     */
+    static PlayerProfile fromStore(SkillStore.Profile stored) {
+        PlayerProfile profile = new PlayerProfile();
+        for (Map.Entry<String, SkillData> entry : stored.skills().entrySet()) {
+            Skills skill = skillFor(entry.getKey());
+            if (skill != null) {
+                profile.setSkill(skill, entry.getValue().xp(), entry.getValue().level());
+            }
+        }
+        profile.prestige = stored.prestige();
+        profile.ironman = stored.ironman();
+        profile.tabMenuVisible = stored.tabMenuVisible();
+        return profile;
+    }
+
+    /**
+     * Returns the skill with this ID, or null if there is none.
+     */
+    static Skills skillFor(String skillId) {
+        return SKILLS_BY_ID.get(skillId);
+    }
+
+    public int xp(Skills skill) {
+        return (int) INT_ARRAY.getAcquire(xp, skill.ordinal());
+    }
+
+    public int level(Skills skill) {
+        return (int) INT_ARRAY.getAcquire(level, skill.ordinal());
+    }
+
+    public boolean hasSkill(Skills skill) {
+        return (storedSkills & (1 << skill.ordinal())) != 0;
+    }
+
+    public boolean hasAllSkills() {
+        return storedSkills == ALL_SKILLS;
+    }
+
+    public boolean hasAnySkill() {
+        return storedSkills != 0;
+    }
+
+    public int totalLevel() {
+        return totalLevel;
+    }
+
+    public int prestige() {
+        return prestige;
+    }
+
+    public boolean ironman() {
+        return ironman;
+    }
+
+    public boolean tabMenuVisible() {
+        return tabMenuVisible;
+    }
+
+    void setSkill(Skills skill, int newXp, int newLevel) {
+        int index = skill.ordinal();
+        long stamp = lock.writeLock();
+        try {
+            totalLevel += newLevel - level[index];
+            INT_ARRAY.setRelease(xp, index, newXp);
+            INT_ARRAY.setRelease(level, index, newLevel);
+            storedSkills |= 1 << index;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void resetSkills() {
+        long stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < SKILLS.length; i++) {
+                INT_ARRAY.setRelease(xp, i, 0);
+                INT_ARRAY.setRelease(level, i, 1);
+            }
+            storedSkills = ALL_SKILLS;
+            totalLevel = SKILLS.length;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void setPrestige(int prestige) {
+        long stamp = lock.writeLock();
+        this.prestige = prestige;
+        lock.unlockWrite(stamp);
+    }
+
+    void setIronman(boolean ironman) {
+        long stamp = lock.writeLock();
+        this.ironman = ironman;
+        lock.unlockWrite(stamp);
+    }
+
+    void setTabMenuVisible(boolean tabMenuVisible) {
+        long stamp = lock.writeLock();
+        this.tabMenuVisible = tabMenuVisible;
+        lock.unlockWrite(stamp);
+    }
+
+    /**
+     * Returns the stored skills as a new map keyed by skill ID, for callers of the map-based API. The copy is
+     * consistent: it never mixes values from before and after a concurrent change.
+     */
+    Map<String, SkillData> skillMap() {
+        int[] xpCopy = new int[SKILLS.length];
+        int[] levelCopy = new int[SKILLS.length];
+        int stored;
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            stored = copySkills(xpCopy, levelCopy);
+            if (lock.validate(stamp)) {
+                break;
+            }
+            // A change was in progress. Changes are a few stores under the lock, so spin rather than park the
+            // render or server thread on a read lock
+            Thread.onSpinWait();
+        }
+        Map<String, SkillData> skills = new HashMap<>();
+        for (Skills skill : SKILLS) {
+            if ((stored & (1 << skill.ordinal())) != 0) {
+                skills.put(skill.getId(), new SkillData(xpCopy[skill.ordinal()], levelCopy[skill.ordinal()]));
+            }
+        }
+        return Collections.unmodifiableMap(skills);
+    }
+
+    private int copySkills(int[] xpOut, int[] levelOut) {
+        System.arraycopy(xp, 0, xpOut, 0, SKILLS.length);
+        System.arraycopy(level, 0, levelOut, 0, SKILLS.length);
+        return storedSkills;
+    }
+}
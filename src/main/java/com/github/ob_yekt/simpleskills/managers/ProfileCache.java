@@ -0,0 +1,159 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link DatabaseManager}'s profile cache. Profiles of online players stay cached until they disconnect.
+ * Profiles loaded for anyone else (leaderboards, admin lookups, the startup warmup) go into a map of at most
+ * database_offline_cache_size entries that evicts the least recently read one when full and drops entries
+ * not read for database_offline_cache_ttl_seconds, so memory follows the number of concurrent players rather
+ * than every player ever seen.
+ * <p>
+ * Lookups are lock-free and may come from any thread (the client HUD, async leaderboards); changes to the
+ * cache are serialized on this instance.
+ */
+final class ProfileCache {
+    // How often puts scan the offline map for expired entries
+    private static final long EXPIRY_SWEEP_INTERVAL_MS = 1000;
+
+    private final Set<UUID> onlinePlayers = new HashSet<>(); // Guarded by this
+    private final Map<UUID, PlayerProfile> onlineProfiles = new ConcurrentHashMap<>();
+    private final Map<UUID, OfflineEntry> offlineProfiles = new ConcurrentHashMap<>();
+    private volatile int offlineCapacity = 500;
+    private volatile long offlineTtlMillis = 300_000;
+    private long nextExpirySweepMillis; // Guarded by this
+
+    private static final class OfflineEntry {
+        private final PlayerProfile profile;
+        // Written by lookups on any thread; only read to pick what to evict, so a lost update is harmless
+        private volatile long lastAccessMillis;
+
+        private OfflineEntry(PlayerProfile profile, long now) {
+            this.profile = profile;
+            this.lastAccessMillis = now;
+        }
+    }
+
+    /**
+     * Reads the offline cache limits from the config.
+     */
+    synchronized void configure() {
+        offlineCapacity = Math.max(0, ConfigManager.getFeatureInt("database_offline_cache_size", 500));
+        offlineTtlMillis = Math.max(1, ConfigManager.getFeatureInt("database_offline_cache_ttl_seconds", 300)) * 1000L;
+        nextExpirySweepMillis = 0;
+        expireOffline(System.currentTimeMillis());
+    }
+
+    int offlineCapacity() {
+        return offlineCapacity;
+    }
+
+    /**
+     * Returns the cached profile, or null on a miss. An expired offline entry counts as a miss.
+     */
+    PlayerProfile get(UUID uuid) {
+        PlayerProfile online = onlineProfiles.get(uuid);
+        if (online != null) {
+            return online;
+        }
+        OfflineEntry entry = offlineProfiles.get(uuid);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - entry.lastAccessMillis >= offlineTtlMillis) {
+            return null;
+        }
+        entry.lastAccessMillis = now;
+        return entry.profile;
+    }
+
+    boolean contains(UUID uuid) {
+        return onlineProfiles.containsKey(uuid) || offlineProfiles.containsKey(uuid);
+    }
+
+    /**
+     * Caches a profile, as an online one if the player is connected.
+     */
+    synchronized void put(UUID uuid, PlayerProfile profile) {
+        if (onlinePlayers.contains(uuid)) {
+            onlineProfiles.put(uuid, profile);
+            offlineProfiles.remove(uuid);
+            return;
+        }
+        onlineProfiles.remove(uuid);
+        if (offlineCapacity == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        expireOffline(now);
+        offlineProfiles.put(uuid, new OfflineEntry(profile, now));
+        if (offlineProfiles.size() > offlineCapacity) {
+            evictLeastRecentlyRead(uuid);
+        }
+    }
+
+    synchronized void remove(UUID uuid) {
+        onlineProfiles.remove(uuid);
+        offlineProfiles.remove(uuid);
+    }
+
+    /**
+     * Marks a player as online; a profile already cached for them moves out of the offline map.
+     */
+    synchronized void playerJoined(UUID uuid) {
+        onlinePlayers.add(uuid);
+        OfflineEntry entry = offlineProfiles.get(uuid);
+        if (entry != null) {
+            // Published as online before it leaves the offline map, so lookups never miss in between
+            onlineProfiles.put(uuid, entry.profile);
+            offlineProfiles.remove(uuid);
+        }
+    }
+
+    /**
+     * Marks a player as offline and forgets their profile.
+     */
+    synchronized void playerLeft(UUID uuid) {
+        onlinePlayers.remove(uuid);
+        onlineProfiles.remove(uuid);
+    }
+
+    synchronized void clear() {
+        onlinePlayers.clear();
+        onlineProfiles.clear();
+        offlineProfiles.clear();
+    }
+
+    private void expireOffline(long now) {
+        if (now < nextExpirySweepMillis) {
+            return;
+        }
+        nextExpirySweepMillis = now + EXPIRY_SWEEP_INTERVAL_MS;
+        long ttl = offlineTtlMillis;
+        offlineProfiles.values().removeIf(entry -> now - entry.lastAccessMillis >= ttl);
+    }
+
+    /**
+     * Removes the entry read least recently, other than the one just added. A linear scan, but it only runs
+     * on cache misses once the map is full, and the map is small.
+     */
+    private void evictLeastRecentlyRead(UUID added) {
+        UUID eldest = null;
+        long eldestAccess = Long.MAX_VALUE;
+        for (Map.Entry<UUID, OfflineEntry> entry : offlineProfiles.entrySet()) {
+            long access = entry.getValue().lastAccessMillis;
+            if (access < eldestAccess && !entry.getKey().equals(added)) {
+                eldest = entry.getKey();
+                eldestAccess = access;
+            }
+        }
+        if (eldest != null) {
+            offlineProfiles.remove(eldest);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+import com.github.ob_yekt.simpleskills.mixin.ServerLoginPacketListenerAccessor;
+import com.mojang.authlib.GameProfile;
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.networking.v1.ServerLoginConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.resources.Identifier;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads a joining player's profile on a worker thread while they are still in the login phase, and holds the
+ * login until it is done. The JOIN handlers in EventHandlers and IronmanManager then find the profile cached
+ * instead of querying the database on the server thread, which keeps mass reconnects off the tick.
+ * Disabled with database_login_prefetch_enabled.
+ * <p>
+ * A prefetch is dropped when the player joins or disconnects during login. Players who disconnect later, in
+ * the configuration phase, never reach JOIN, so prefetches older than PENDING_TIMEOUT_MS are also dropped
+ * whenever a new login starts; a player who takes longer than that to join simply loads on the server thread.
+ */
+public class ProfilePrefetcher {
+    // Runs before the default-phase JOIN handlers that read the caches
+    private static final Identifier PREFETCH_PHASE = Identifier.fromNamespaceAndPath(Simpleskills.MOD_ID, "profile_prefetch");
+    // Generous, since the configuration phase includes downloading the server resource pack
+    private static final long PENDING_TIMEOUT_MS = 5 * 60 * 1000;
+    private static final Map<UUID, Prefetch> pending = new ConcurrentHashMap<>();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "simpleskills-profile-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record Prefetch(CompletableFuture<SkillStore.Profile> future, long startedMillis) {}
+
+    public static void init() {
+        ServerLoginConnectionEvents.QUERY_START.register((handler, server, sender, synchronizer) -> {
+            if (!ConfigManager.getFeatureBoolean("database_login_prefetch_enabled", true)) {
+                return;
+            }
+            GameProfile profile = ((ServerLoginPacketListenerAccessor) handler).getAuthenticatedProfile();
+            if (profile == null || profile.id() == null) {
+                return;
+            }
+            UUID uuid = profile.id();
+            long now = System.currentTimeMillis();
+            pending.values().removeIf(prefetch -> now - prefetch.startedMillis() > PENDING_TIMEOUT_MS);
+            CompletableFuture<SkillStore.Profile> future = CompletableFuture
+                    .supplyAsync(() -> DatabaseManager.getInstance().prefetchProfile(uuid.toString()), executor)
+                    .exceptionally(e -> {
+                        // The JOIN handlers fall back to loading on the server thread
+                        Simpleskills.LOGGER.warn("Failed to prefetch profile for {}: {}", uuid, e.getMessage());
+                        return null;
+                    });
+            pending.put(uuid, new Prefetch(future, now));
+            synchronizer.waitFor(future);
+        });
+
+        ServerLoginConnectionEvents.DISCONNECT.register((handler, server) -> {
+            GameProfile profile = ((ServerLoginPacketListenerAccessor) handler).getAuthenticatedProfile();
+            if (profile != null && profile.id() != null) {
+                pending.remove(profile.id());
+            }
+        });
+
+        ServerPlayConnectionEvents.JOIN.addPhaseOrdering(PREFETCH_PHASE, Event.DEFAULT_PHASE);
+        ServerPlayConnectionEvents.JOIN.register(PREFETCH_PHASE, (handler, sender, server) -> {
+            Prefetch prefetch = pending.remove(handler.getPlayer().getUUID());
+            // Login waited for the future, so this never blocks; anything unfinished is left to the normal path
+            if (prefetch != null && prefetch.future().isDone()) {
+                DatabaseManager.getInstance().installPrefetchedProfile(handler.getPlayer().getStringUUID(), prefetch.future().join());
+            }
+        });
+    }
+}
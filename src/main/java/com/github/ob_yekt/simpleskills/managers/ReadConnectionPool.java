@@ -0,0 +1,119 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+import org.sqlite.SQLiteConfig;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small fixed pool of read-only SQLite connections used by {@link SqliteSkillStore} for leaderboards,
+ * full-table queries and exports. In WAL mode these read a consistent snapshot without waiting for the
+ * writer connection or blocking it.
+ */
+class ReadConnectionPool {
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+
+    private final String url;
+    private final SqliteTuningProfile profile;
+    private final BlockingQueue<Connection> idle;
+    private volatile boolean closed;
+
+    @FunctionalInterface
+    interface ReadTask<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    ReadConnectionPool(Path databasePath, int size, SqliteTuningProfile profile) throws SQLException {
+        this.url = "jdbc:sqlite:" + databasePath;
+        this.profile = profile;
+        this.idle = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                idle.add(open());
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the task on a pooled connection, waiting for one to free up if all are busy.
+     * A connection whose task failed is replaced rather than handed out again.
+     */
+    <T> T withConnection(ReadTask<T> task) throws SQLException {
+        Connection connection;
+        try {
+            connection = idle.poll(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a read connection", e);
+        }
+        if (connection == null) {
+            throw new SQLException("Timed out waiting for a read connection");
+        }
+        boolean healthy = false;
+        try {
+            T result = task.run(connection);
+            healthy = true;
+            return result;
+        } finally {
+            release(connection, healthy);
+        }
+    }
+
+    private void release(Connection connection, boolean healthy) {
+        if (!healthy && !closed) {
+            closeQuietly(connection);
+            try {
+                connection = open();
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to reopen read connection; the pool shrinks by one: {}", e.getMessage());
+                return;
+            }
+        }
+        if (closed) {
+            closeQuietly(connection);
+        } else {
+            idle.offer(connection);
+        }
+    }
+
+    private Connection open() throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        Connection connection = DriverManager.getConnection(url, config.toProperties());
+        try (Statement stmt = connection.createStatement()) {
+            for (String pragma : profile.readerPragmas()) {
+                stmt.execute(pragma);
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Closes idle connections now; busy ones are closed as their tasks finish.
+     */
+    void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            Simpleskills.LOGGER.debug("Failed to close read connection: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.DatabaseException;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Versioned schema changes for {@link SqliteSkillStore}. The version of a database is kept in PRAGMA
+ * user_version and every migration above it runs once, in order, in its own transaction together with the
+ * version bump, so an interrupted upgrade resumes at the first missing step. An up-to-date database costs a
+ * single pragma read on connect.
+ * <p>
+ * Databases written before versioning report version 0 whatever they contain, so every step has to cope
+ * with its tables already existing. New steps go at the end with the next version; shipped steps must
+ * never change.
+ */
+final class SchemaMigrations {
+    // The version that added the leaderboard tables; older databases need them filled
+    static final int LEADERBOARD_VERSION = 3;
+
+    // The compact skill table created by version 1; also used by the JMH benchmarks
+    static final String CREATE_SKILLS_TABLE_SQL = """
+        CREATE TABLE IF NOT EXISTS player_skills_v2 (
+            player_id BLOB NOT NULL,
+            skill INTEGER NOT NULL,
+            xp INTEGER NOT NULL DEFAULT 0,
+            level INTEGER NOT NULL DEFAULT 1,
+            PRIMARY KEY (player_id, skill)
+        ) WITHOUT ROWID
+    """;
+
+    private record Migration(int version, String description, Step step) {}
+
+    @FunctionalInterface
+    private interface Step {
+        void apply(Statement stmt) throws SQLException;
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "create the player tables", SchemaMigrations::createPlayerTables),
+            new Migration(2, "add player_current_name and compact the name history", SchemaMigrations::addCurrentNames),
+            new Migration(LEADERBOARD_VERSION, "add the leaderboard tables", stmt -> execute(stmt, LeaderboardSchema.createTablesSql())),
+            new Migration(4, "add the XP history tables", stmt -> execute(stmt, XpHistory.createTablesSql())));
+
+    private SchemaMigrations() {} // Utility class
+
+    static int latestVersion() {
+        return MIGRATIONS.getLast().version();
+    }
+
+    /**
+     * Applies the pending migrations and returns the version the database had before.
+     */
+    static int migrate(Connection connection) throws SQLException {
+        int startVersion;
+        try (Statement stmt = connection.createStatement()) {
+            startVersion = userVersion(stmt);
+            if (startVersion > latestVersion()) {
+                Simpleskills.LOGGER.error("Database schema version {} is newer than this version of simpleskills supports ({}).",
+                        startVersion, latestVersion());
+                throw new DatabaseException("Database schema version " + startVersion + " is not supported", null);
+            }
+            if (startVersion == latestVersion()) {
+                return startVersion;
+            }
+            long startMillis = System.currentTimeMillis();
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() > startVersion) {
+                    apply(connection, stmt, migration);
+                }
+            }
+            Simpleskills.LOGGER.info("Upgraded database schema from version {} to {} in {} ms.", startVersion, latestVersion(),
+                    System.currentTimeMillis() - startMillis);
+        }
+        return startVersion;
+    }
+
+    private static void apply(Connection connection, Statement stmt, Migration migration) throws SQLException {
+        try {
+            connection.setAutoCommit(false);
+            migration.step().apply(stmt);
+            stmt.execute("PRAGMA user_version = " + migration.version());
+            connection.commit();
+            Simpleskills.LOGGER.debug("Applied database migration {}: {}.", migration.version(), migration.description());
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            }
+            Simpleskills.LOGGER.error("Failed to apply database migration {} ({}): {}", migration.version(), migration.description(), e.getMessage());
+            throw e;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void createPlayerTables(Statement stmt) throws SQLException {
+        String createPlayersTable = """
+        CREATE TABLE IF NOT EXISTS players (
+            player_uuid TEXT PRIMARY KEY,
+            is_ironman INTEGER DEFAULT 0,
+            is_tab_menu_visible INTEGER DEFAULT 1,
+            prestige INTEGER DEFAULT 0
+        )
+    """;
+        String createSkillIdsTable = """
+        CREATE TABLE IF NOT EXISTS skill_ids (
+            skill INTEGER PRIMARY KEY,
+            skill_id TEXT NOT NULL UNIQUE
+        )
+    """;
+        String createPlayerNamesTable = """
+        CREATE TABLE IF NOT EXISTS player_names (
+            uuid TEXT,
+            name TEXT,
+            last_seen INTEGER,
+            PRIMARY KEY (uuid, last_seen)
+        )
+    """;
+        stmt.execute(createPlayersTable);
+        stmt.execute(createSkillIdsTable);
+        stmt.execute(CREATE_SKILLS_TABLE_SQL);
+        stmt.execute(createPlayerNamesTable);
+        stmt.execute(WideProfileSchema.createTableSql());
+        // Databases from before prestige existed lack the column
+        if (!columnExists(stmt, "players", "prestige")) {
+            stmt.execute("ALTER TABLE players ADD COLUMN prestige INTEGER DEFAULT 0");
+        }
+    }
+
+    /**
+     * Creates player_current_name and, if it did not exist yet, fills it from player_names and compacts that history.
+     */
+    private static void addCurrentNames(Statement stmt) throws SQLException {
+        boolean compact = !tableExists(stmt, "player_current_name");
+        stmt.execute(PlayerNameSchema.createTableSql());
+        if (!compact) {
+            return;
+        }
+        int historyLimit = Math.max(1, ConfigManager.getFeatureInt("database_name_history_limit", 10));
+        long before = countRows(stmt, "player_names");
+        execute(stmt, PlayerNameSchema.compactHistorySql(historyLimit));
+        long after = countRows(stmt, "player_names");
+        if (before != after) {
+            Simpleskills.LOGGER.info("Compacted player name history from {} to {} rows.", before, after);
+        }
+    }
+
+    private static void execute(Statement stmt, List<String> statements) throws SQLException {
+        for (String sql : statements) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static int userVersion(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static boolean tableExists(Statement stmt, String table) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = '" + table + "'")) {
+            return rs.next();
+        }
+    }
+
+    private static boolean columnExists(Statement stmt, String table, String column) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long countRows(Statement stmt, String table) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.DatabaseException;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.LeaderboardEntry;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.SkillData;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A {@link SkillStore} that partitions players by UUID hash over database_shard_count SQLite databases, each a
+ * full {@link SqliteSkillStore} with its own connection, writer thread, journal and backups under
+ * simpleskills-shards/shard-N. A player's skills, flags and names all live in one shard, so every per-player
+ * call goes to a single database and writes to different shards commit in parallel. Leaderboards query every
+ * shard concurrently and merge the top entries.
+ * <p>
+ * The shard count is recorded next to the shards and cannot change afterwards, since that would move players
+ * between databases; use /simpleskills export and import to reshard. An existing unsharded simpleskills.db is
+ * copied into the shards the first time they are created: profiles (including saves still in its XP journal),
+ * names and the hourly and daily XP history. It is only read, through a read-only connection, and stays in place.
+ */
+public final class ShardedSkillStore implements SkillStore {
+    static final String SHARD_DIRECTORY = "simpleskills-shards";
+    private static final String SHARD_COUNT_FILE = "shard_count";
+    private static final int MIGRATION_CHUNK_SIZE = 1000;
+    // Marker files for finished stages of the unsharded copy; removed once the shard count is written
+    private static final String MIGRATION_STAGE_PREFIX = "migrated_";
+    private static final String STAGE_PROFILES = "profiles";
+    private static final String STAGE_HOURLY = "xp_hourly";
+    private static final String STAGE_DAILY = "xp_daily";
+    private static final Comparator<LeaderboardEntry> LEADERBOARD_ORDER = Comparator
+            .comparingInt(LeaderboardEntry::prestige)
+            .thenComparingInt(LeaderboardEntry::level)
+            .thenComparingInt(LeaderboardEntry::xp)
+            .reversed();
+
+    private final SqliteSkillStore[] shards;
+    private volatile Path dataDirectory;
+    // Fans leaderboard queries and backups out to all shards at once
+    private volatile ExecutorService fanOut;
+
+    public ShardedSkillStore(int shardCount) {
+        shards = new SqliteSkillStore[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new SqliteSkillStore();
+        }
+    }
+
+    @Override
+    public synchronized void open(Path dataDirectory) {
+        Path root = dataDirectory.resolve(SHARD_DIRECTORY);
+        boolean created = checkShardCount(root);
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                shards[i].open(shardDirectory(root, i));
+            }
+            fanOut = Executors.newFixedThreadPool(shards.length, runnable -> {
+                Thread thread = new Thread(runnable, "simpleskills-shard-query");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (created) {
+                migrateUnshardedDatabase(dataDirectory, root);
+                writeShardCount(root);
+                clearMigrationStages(root);
+            }
+        } catch (RuntimeException e) {
+            // Shards opened so far own writer and maintenance threads
+            close();
+            throw e;
+        }
+        this.dataDirectory = dataDirectory;
+        Simpleskills.LOGGER.info("Using {} database shards in {}.", shards.length, root);
+    }
+
+    @Override
+    public synchronized boolean isOpenAt(Path dataDirectory) {
+        if (!dataDirectory.equals(this.dataDirectory)) {
+            return false;
+        }
+        Path root = dataDirectory.resolve(SHARD_DIRECTORY);
+        for (int i = 0; i < shards.length; i++) {
+            if (!shards[i].isOpenAt(shardDirectory(root, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (fanOut != null) {
+            fanOut.shutdown();
+            fanOut = null;
+        }
+        for (SqliteSkillStore shard : shards) {
+            shard.close();
+        }
+        dataDirectory = null;
+    }
+
+    /**
+     * Returns true if the shards are new. Refuses to open shards written with a different count.
+     */
+    private boolean checkShardCount(Path root) {
+        Path countFile = root.resolve(SHARD_COUNT_FILE);
+        if (!Files.exists(countFile)) {
+            return true;
+        }
+        try {
+            int stored = Integer.parseInt(Files.readString(countFile, StandardCharsets.UTF_8).trim());
+            if (stored != shards.length) {
+                Simpleskills.LOGGER.error("database_shard_count is {} but {} holds {} shards; export and import the data to reshard.",
+                        shards.length, root, stored);
+                throw new DatabaseException("Database shard count changed from " + stored + " to " + shards.length, null);
+            }
+            return false;
+        } catch (IOException | NumberFormatException e) {
+            throw new DatabaseException("Failed to read " + countFile, e);
+        }
+    }
+
+    // Written last, so a migration interrupted by a crash is simply run again
+    private void writeShardCount(Path root) {
+        try {
+            Files.writeString(root.resolve(SHARD_COUNT_FILE), Integer.toString(shards.length), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new DatabaseException("Failed to write " + root.resolve(SHARD_COUNT_FILE), e);
+        }
+    }
+
+    private static boolean migrationStageDone(Path root, String stage) {
+        return Files.exists(root.resolve(MIGRATION_STAGE_PREFIX + stage));
+    }
+
+    private static void markMigrationStageDone(Path root, String stage) {
+        try {
+            Files.writeString(root.resolve(MIGRATION_STAGE_PREFIX + stage), "", StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new DatabaseException("Failed to record the " + stage + " migration stage", e);
+        }
+    }
+
+    private static void clearMigrationStages(Path root) {
+        for (String stage : List.of(STAGE_PROFILES, STAGE_HOURLY, STAGE_DAILY)) {
+            try {
+                Files.deleteIfExists(root.resolve(MIGRATION_STAGE_PREFIX + stage));
+            } catch (IOException e) {
+                Simpleskills.LOGGER.warn("Failed to remove migration marker {}: {}", stage, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Copies the players, names and XP history of an unsharded simpleskills.db into their shards, reading it
+     * through {@link UnshardedDatabaseReader}. The old file is left in place, untouched.
+     * <p>
+     * Each stage is recorded in the shard directory once it completes, and a rerun after a failure or crash
+     * skips finished stages. Profiles and names are written with replace semantics, and each XP history
+     * table is emptied before it is copied again, so no stage is applied twice.
+     */
+    private void migrateUnshardedDatabase(Path dataDirectory, Path root) {
+        if (!Files.exists(dataDirectory.resolve(SqliteSkillStore.DATABASE_NAME))) {
+            return;
+        }
+        Simpleskills.LOGGER.info("Copying player data from {} into {} shards...", SqliteSkillStore.DATABASE_NAME, shards.length);
+        long startMillis = System.currentTimeMillis();
+        try (UnshardedDatabaseReader source = new UnshardedDatabaseReader(dataDirectory)) {
+            long players = migrationStageDone(root, STAGE_PROFILES) ? 0 : copyProfiles(source);
+            markMigrationStageDone(root, STAGE_PROFILES);
+            long buckets = 0;
+            for (boolean daily : new boolean[] {false, true}) {
+                String stage = daily ? STAGE_DAILY : STAGE_HOURLY;
+                if (!migrationStageDone(root, stage)) {
+                    buckets += copyXpHistory(source, daily);
+                    markMigrationStageDone(root, stage);
+                }
+            }
+            Simpleskills.LOGGER.info("Copied {} players and {} XP history buckets into the shards in {} ms; {} is no longer used.",
+                    players, buckets, System.currentTimeMillis() - startMillis, SqliteSkillStore.DATABASE_NAME);
+        } catch (SQLException | IOException e) {
+            Simpleskills.LOGGER.error("Failed to copy {} into the shards: {}", SqliteSkillStore.DATABASE_NAME, e.getMessage());
+            throw new DatabaseException("Failed to copy the unsharded database", e);
+        }
+    }
+
+    private long copyProfiles(UnshardedDatabaseReader source) throws SQLException {
+        List<Map<String, Profile>> profiles = new ArrayList<>();
+        List<List<PlayerName>> names = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            profiles.add(new HashMap<>());
+            names.add(new ArrayList<>());
+        }
+        long[] players = {0};
+        source.forEachProfile((playerUuid, profile) -> {
+            int shard = shardIndex(playerUuid);
+            profiles.get(shard).put(playerUuid, profile);
+            players[0]++;
+            if (profiles.get(shard).size() >= MIGRATION_CHUNK_SIZE) {
+                flushMigrationChunk(shard, profiles, names);
+            }
+        });
+        source.forEachPlayerName(name -> {
+            int shard = shardIndex(name.playerUuid());
+            names.get(shard).add(name);
+            if (names.get(shard).size() >= MIGRATION_CHUNK_SIZE) {
+                flushMigrationChunk(shard, profiles, names);
+            }
+        });
+        for (int i = 0; i < shards.length; i++) {
+            flushMigrationChunk(i, profiles, names);
+        }
+        return players[0];
+    }
+
+    /**
+     * Copies hourly or daily buckets into emptied tables. The reader can return a bucket twice (rolled up and
+     * from later events), so the copy itself adds them up.
+     */
+    private long copyXpHistory(UnshardedDatabaseReader source, boolean daily) throws SQLException {
+        List<Map<String, List<XpBucket>>> buckets = new ArrayList<>();
+        int[] counts = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].clearXpHistory(daily);
+            buckets.add(new HashMap<>());
+        }
+        long[] copied = {0};
+        source.forEachXpBucket(daily, (playerUuid, bucket) -> {
+            int shard = shardIndex(playerUuid);
+            buckets.get(shard).computeIfAbsent(playerUuid, uuid -> new ArrayList<>()).add(bucket);
+            copied[0]++;
+            if (++counts[shard] >= MIGRATION_CHUNK_SIZE) {
+                shards[shard].importXpHistory(daily, buckets.get(shard));
+                buckets.get(shard).clear();
+                counts[shard] = 0;
+            }
+        });
+        for (int i = 0; i < shards.length; i++) {
+            if (counts[i] > 0) {
+                shards[i].importXpHistory(daily, buckets.get(i));
+            }
+        }
+        return copied[0];
+    }
+
+    private void flushMigrationChunk(int shard, List<Map<String, Profile>> profiles, List<List<PlayerName>> names) {
+        if (!profiles.get(shard).isEmpty() || !names.get(shard).isEmpty()) {
+            shards[shard].importChunk(profiles.get(shard), names.get(shard));
+            profiles.get(shard).clear();
+            names.get(shard).clear();
+        }
+    }
+
+    private static Path shardDirectory(Path root, int index) {
+        return root.resolve("shard-" + index);
+    }
+
+    private int shardIndex(String playerUuid) {
+        long hash;
+        try {
+            UUID uuid = UUID.fromString(playerUuid);
+            hash = uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            hash = playerUuid == null ? 0 : playerUuid.hashCode();
+        }
+        // Mixed first: offline-mode and test UUIDs are not uniformly random in every bit
+        hash *= 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(hash ^ (hash >>> 32), (long) shards.length);
+    }
+
+    private SqliteSkillStore shard(String playerUuid) {
+        return shards[shardIndex(playerUuid)];
+    }
+
+    @Override
+    public boolean playerExists(String playerUuid) {
+        return shard(playerUuid).playerExists(playerUuid);
+    }
+
+    @Override
+    public void initializePlayer(String playerUuid) {
+        shard(playerUuid).initializePlayer(playerUuid);
+    }
+
+    @Override
+    public Profile loadProfile(String playerUuid) {
+        return shard(playerUuid).loadProfile(playerUuid);
+    }
+
+    @Override
+    public void saveSkill(String playerUuid, String skillId, int xp, int level, PlayerProfile profile) {
+        shard(playerUuid).saveSkill(playerUuid, skillId, xp, level, profile);
+    }
+
+    @Override
+    public void resetSkills(String playerUuid) {
+        shard(playerUuid).resetSkills(playerUuid);
+    }
+
+    @Override
+    public void savePrestige(String playerUuid, int prestige) {
+        shard(playerUuid).savePrestige(playerUuid, prestige);
+    }
+
+    @Override
+    public void saveIronmanMode(String playerUuid, boolean isIronman) {
+        shard(playerUuid).saveIronmanMode(playerUuid, isIronman);
+    }
+
+    @Override
+    public void saveTabMenuVisibility(String playerUuid, boolean isVisible) {
+        shard(playerUuid).saveTabMenuVisibility(playerUuid, isVisible);
+    }
+
+    @Override
+    public void savePlayerName(String playerUuid, String playerName, long lastSeen) {
+        shard(playerUuid).savePlayerName(playerUuid, playerName, lastSeen);
+    }
+
+    @Override
+    public void requestFlush(String playerUuid) {
+        shard(playerUuid).requestFlush(playerUuid);
+    }
+
+    @Override
+    public List<LeaderboardEntry> getSkillLeaderboard(String skillId, int limit, boolean ironmanOnly) {
+        return mergeTopEntries(shard -> shard.getSkillLeaderboard(skillId, limit, ironmanOnly), limit);
+    }
+
+    @Override
+    public List<LeaderboardEntry> getTotalLevelLeaderboard(int limit, boolean ironmanOnly) {
+        return mergeTopEntries(shard -> shard.getTotalLevelLeaderboard(limit, ironmanOnly), limit);
+    }
+
+    /**
+     * Runs a top-N query on every shard at once; the overall top N is within the union of each shard's top N.
+     */
+    private List<LeaderboardEntry> mergeTopEntries(Function<SqliteSkillStore, List<LeaderboardEntry>> query, int limit) {
+        List<LeaderboardEntry> merged = new ArrayList<>();
+        for (List<LeaderboardEntry> entries : fanOutAll(query)) {
+            merged.addAll(entries);
+        }
+        merged.sort(LEADERBOARD_ORDER);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, Math.max(0, limit))) : merged;
+    }
+
+    private <T> List<T> fanOutAll(Function<SqliteSkillStore, T> task) {
+        ExecutorService executor = fanOut;
+        if (executor == null) {
+            throw new DatabaseException("No database connection available", null);
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (SqliteSkillStore shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> task.apply(shard), executor));
+        }
+        List<T> results = new ArrayList<>();
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof DatabaseException databaseException) {
+                throw databaseException;
+            }
+            throw new DatabaseException("Shard query failed", e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public void recordXpGain(String playerUuid, String skillId, int xp, long timestamp) {
+        shard(playerUuid).recordXpGain(playerUuid, skillId, xp, timestamp);
+    }
+
+    @Override
+    public List<XpBucket> getXpHistory(String playerUuid, boolean daily, long since) {
+        return shard(playerUuid).getXpHistory(playerUuid, daily, since);
+    }
+
+    @Override
+    public void forEachPlayer(Consumer<UUID> action) {
+        for (SqliteSkillStore shard : shards) {
+            shard.forEachPlayer(action);
+        }
+    }
+
+    /**
+     * With a limit, takes an equal share of the most recently seen players from each shard, which the UUID
+     * hash makes a close approximation of the overall most recent players.
+     */
+    @Override
+    public void forEachProfile(int limit, BiConsumer<String, Profile> action) {
+        int perShard = limit > 0 ? Math.max(1, (limit + shards.length - 1) / shards.length) : 0;
+        for (SqliteSkillStore shard : shards) {
+            shard.forEachProfile(perShard, action);
+        }
+    }
+
+    @Override
+    public void forEachPlayerName(Consumer<PlayerName> action) {
+        for (SqliteSkillStore shard : shards) {
+            shard.forEachPlayerName(action);
+        }
+    }
+
+    @Override
+    public void importChunk(Map<String, Profile> profiles, List<PlayerName> names) {
+        List<Map<String, Profile>> profilesByShard = new ArrayList<>();
+        List<List<PlayerName>> namesByShard = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            profilesByShard.add(new HashMap<>());
+            namesByShard.add(new ArrayList<>());
+        }
+        profiles.forEach((playerUuid, profile) -> profilesByShard.get(shardIndex(playerUuid)).put(playerUuid, profile));
+        for (PlayerName name : names) {
+            namesByShard.get(shardIndex(name.playerUuid())).add(name);
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (!profilesByShard.get(i).isEmpty() || !namesByShard.get(i).isEmpty()) {
+                shards[i].importChunk(profilesByShard.get(i), namesByShard.get(i));
+            }
+        }
+    }
+
+    /**
+     * Snapshots every shard; completes with the shard directory once all of them are written.
+     * Each shard's snapshot lands in its own simpleskills-backups directory.
+     */
+    @Override
+    public CompletableFuture<Path> backup() {
+        Path directory = dataDirectory;
+        if (directory == null) {
+            return CompletableFuture.failedFuture(new DatabaseException("No database connection available", null));
+        }
+        CompletableFuture<?>[] backups = new CompletableFuture<?>[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            backups[i] = shards[i].backup();
+        }
+        return CompletableFuture.allOf(backups).thenApply(ignored -> directory.resolve(SHARD_DIRECTORY));
+    }
+
+    @Override
+    public DatabaseWriteStats.Snapshot getWriteStats() {
+        DatabaseWriteStats.Snapshot total = shards[0].getWriteStats();
+        for (int i = 1; i < shards.length; i++) {
+            total = total.combine(shards[i].getWriteStats());
+        }
+        return total;
+    }
+
+    @Override
+    public boolean isMigrationInProgress() {
+        for (SqliteSkillStore shard : shards) {
+            if (shard.isMigrationInProgress()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,203 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.DatabaseException;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.SkillData;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Streams player data between a {@link SkillStore} and a JSON Lines file, independent of the storage layout.
+ * The file starts with a header line, then holds one "player" line per profile followed by one "name" line per
+ * current player name. Export writes each row as the store's cursor yields it, and import reads a line at a
+ * time and writes chunks of database_import_chunk_size entries per transaction, so memory stays bounded
+ * whatever the size of the database.
+ */
+final class SkillDataTransfer {
+    static final String FORMAT = "simpleskills-export";
+    static final int VERSION = 1;
+    private static final Gson GSON = new Gson();
+
+    private SkillDataTransfer() {} // Utility class
+
+    /**
+     * Writes every profile and name to the file and returns the number of players written.
+     */
+    static long export(SkillStore store, Path file) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        long[] players = {0};
+        try (BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+            JsonObject header = new JsonObject();
+            header.addProperty("type", "header");
+            header.addProperty("format", FORMAT);
+            header.addProperty("version", VERSION);
+            writeLine(writer, header);
+            store.forEachProfile(0, (playerUuid, profile) -> {
+                writeLine(writer, profileLine(playerUuid, profile));
+                players[0]++;
+            });
+            store.forEachPlayerName(name -> writeLine(writer, nameLine(name)));
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(partial);
+            throw e.getCause();
+        } catch (IOException | DatabaseException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        return players[0];
+    }
+
+    /**
+     * Reads the file into the store in chunks and returns the number of players imported. Players in
+     * {@code skipped} are left alone; {@code chunkWritten} receives the UUIDs of each committed chunk.
+     */
+    static long importFrom(SkillStore store, Path file, int chunkSize, Set<String> skipped,
+                           Consumer<List<String>> chunkWritten) throws IOException {
+        Map<String, SkillStore.Profile> profiles = new LinkedHashMap<>();
+        List<SkillStore.PlayerName> names = new ArrayList<>();
+        long imported = 0;
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonObject json;
+                try {
+                    json = JsonParser.parseString(line).getAsJsonObject();
+                } catch (JsonParseException | IllegalStateException e) {
+                    throw new IOException("Line " + lineNumber + " is not a JSON object");
+                }
+                String type = json.has("type") ? json.get("type").getAsString() : "";
+                switch (type) {
+                    case "header" -> checkHeader(json, lineNumber);
+                    case "player" -> {
+                        String playerUuid = readUuid(json, lineNumber);
+                        if (!skipped.contains(playerUuid)) {
+                            profiles.put(playerUuid, readProfile(json, lineNumber));
+                        }
+                    }
+                    case "name" -> {
+                        String playerUuid = readUuid(json, lineNumber);
+                        if (!skipped.contains(playerUuid) && json.has("name")) {
+                            names.add(new SkillStore.PlayerName(playerUuid, json.get("name").getAsString(),
+                                    json.has("last_seen") ? json.get("last_seen").getAsLong() : 0));
+                        }
+                    }
+                    default -> throw new IOException("Line " + lineNumber + " has unknown type '" + type + "'");
+                }
+                if (profiles.size() + names.size() >= chunkSize) {
+                    imported += writeChunk(store, profiles, names, chunkWritten);
+                }
+            }
+        }
+        imported += writeChunk(store, profiles, names, chunkWritten);
+        return imported;
+    }
+
+    private static int writeChunk(SkillStore store, Map<String, SkillStore.Profile> profiles, List<SkillStore.PlayerName> names,
+                                  Consumer<List<String>> chunkWritten) {
+        if (profiles.isEmpty() && names.isEmpty()) {
+            return 0;
+        }
+        store.importChunk(profiles, names);
+        int written = profiles.size();
+        chunkWritten.accept(new ArrayList<>(profiles.keySet()));
+        Simpleskills.LOGGER.debug("Imported a chunk of {} players and {} names.", written, names.size());
+        profiles.clear();
+        names.clear();
+        return written;
+    }
+
+    private static JsonObject profileLine(String playerUuid, SkillStore.Profile profile) {
+        JsonObject json = new JsonObject();
+        json.addProperty("type", "player");
+        json.addProperty("uuid", playerUuid);
+        json.addProperty("prestige", profile.prestige());
+        json.addProperty("ironman", profile.ironman());
+        json.addProperty("tab_menu_visible", profile.tabMenuVisible());
+        JsonObject skills = new JsonObject();
+        for (Map.Entry<String, SkillData> skill : profile.skills().entrySet()) {
+            JsonObject data = new JsonObject();
+            data.addProperty("xp", skill.getValue().xp());
+            data.addProperty("level", skill.getValue().level());
+            skills.add(skill.getKey(), data);
+        }
+        json.add("skills", skills);
+        return json;
+    }
+
+    private static JsonObject nameLine(SkillStore.PlayerName name) {
+        JsonObject json = new JsonObject();
+        json.addProperty("type", "name");
+        json.addProperty("uuid", name.playerUuid());
+        json.addProperty("name", name.name());
+        json.addProperty("last_seen", name.lastSeen());
+        return json;
+    }
+
+    private static SkillStore.Profile readProfile(JsonObject json, int lineNumber) throws IOException {
+        try {
+            Map<String, SkillData> skills = new HashMap<>();
+            if (json.has("skills")) {
+                for (Map.Entry<String, JsonElement> skill : json.getAsJsonObject("skills").entrySet()) {
+                    JsonObject data = skill.getValue().getAsJsonObject();
+                    skills.put(skill.getKey(), new SkillData(data.get("xp").getAsInt(), data.get("level").getAsInt()));
+                }
+            }
+            return new SkillStore.Profile(skills,
+                    json.has("prestige") ? json.get("prestige").getAsInt() : 0,
+                    json.has("ironman") && json.get("ironman").getAsBoolean(),
+                    !json.has("tab_menu_visible") || json.get("tab_menu_visible").getAsBoolean());
+        } catch (RuntimeException e) {
+            throw new IOException("Line " + lineNumber + " has an invalid player entry");
+        }
+    }
+
+    private static String readUuid(JsonObject json, int lineNumber) throws IOException {
+        try {
+            return UUID.fromString(json.get("uuid").getAsString()).toString();
+        } catch (RuntimeException e) {
+            throw new IOException("Line " + lineNumber + " has no valid uuid");
+        }
+    }
+
+    private static void checkHeader(JsonObject json, int lineNumber) throws IOException {
+        if (!json.has("format") || !FORMAT.equals(json.get("format").getAsString())
+                || !json.has("version") || json.get("version").getAsInt() > VERSION) {
+            throw new IOException("Line " + lineNumber + " is not a supported simpleskills export header");
+        }
+    }
+
+    private static void writeLine(BufferedWriter writer, JsonObject json) {
+        try {
+            writer.write(GSON.toJson(json));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.LeaderboardEntry;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.SkillData;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Persistence backend behind {@link DatabaseManager}. DatabaseManager owns the caches and the public API the
+ * rest of the mod uses; a store only loads and saves player data, so storage engines can be swapped or
+ * benchmarked without touching the hot paths. Selected with database_backend in config.json.
+ * <p>
+ * Implementations must be safe to call from any thread. Saves may be applied asynchronously, but every later
+ * read through the same store must observe them.
+ */
+public interface SkillStore {
+
+    /**
+     * A player's stored data. The skills map is a fresh copy the caller may keep and modify.
+     */
+    record Profile(Map<String, SkillData> skills, int prestige, boolean ironman, boolean tabMenuVisible) {}
+
+    /**
+     * A player's current name and when it was last seen, in Unix seconds.
+     */
+    record PlayerName(String playerUuid, String name, long lastSeen) {}
+
+    /**
+     * XP gained in one skill during the hour or day starting at {@code start}, in Unix seconds, over {@code gains} grants.
+     */
+    record XpBucket(String skillId, long start, long xp, long gains) {}
+
+    /**
+     * Opens the store for a world, creating or upgrading its storage as needed.
+     */
+    void open(Path dataDirectory);
+
+    boolean isOpenAt(Path dataDirectory);
+
+    /**
+     * Persists anything still pending and releases the store's resources.
+     */
+    void close();
+
+    boolean playerExists(String playerUuid);
+
+    /**
+     * Creates default rows for a player, keeping any data that already exists.
+     */
+    void initializePlayer(String playerUuid);
+
+    /**
+     * Returns the player's stored data, or null if nothing is stored for them. Must reflect every write
+     * submitted before the call, including ones still queued or journaled: {@link DatabaseManager#playerLeft}
+     * drops a profile without waiting for its flush, and the next load has to see those writes.
+     */
+    Profile loadProfile(String playerUuid);
+
+    /**
+     * Saves one skill. {@code profile} is the caller's cached profile after this change if it holds every skill,
+     * or null otherwise; stores may use it to write the whole profile at once, but must copy what they need
+     * before returning since the caller keeps updating it.
+     */
+    void saveSkill(String playerUuid, String skillId, int xp, int level, PlayerProfile profile);
+
+    void resetSkills(String playerUuid);
+
+    void savePrestige(String playerUuid, int prestige);
+
+    void saveIronmanMode(String playerUuid, boolean isIronman);
+
+    void saveTabMenuVisibility(String playerUuid, boolean isVisible);
+
+    void savePlayerName(String playerUuid, String playerName, long lastSeen);
+
+    /**
+     * Asks the store to commit the player's pending writes soon instead of at the next scheduled flush.
+     * Does not wait; stores that write immediately do nothing.
+     */
+    void requestFlush(String playerUuid);
+
+    List<LeaderboardEntry> getSkillLeaderboard(String skillId, int limit, boolean ironmanOnly);
+
+    List<LeaderboardEntry> getTotalLevelLeaderboard(int limit, boolean ironmanOnly);
+
+    /**
+     * Records an XP grant at {@code timestamp}, in Unix seconds, for the XP history. Stores may buffer it and
+     * ignore it entirely when the history is disabled.
+     */
+    void recordXpGain(String playerUuid, String skillId, int xp, long timestamp);
+
+    /**
+     * Returns the player's hourly or daily XP buckets starting at or after {@code since}, oldest first.
+     */
+    List<XpBucket> getXpHistory(String playerUuid, boolean daily, long since);
+
+    /**
+     * Calls the action for every initialized player.
+     */
+    void forEachPlayer(Consumer<UUID> action);
+
+    /**
+     * Streams stored profiles, most recently seen players first, stopping after {@code limit} profiles
+     * (no limit if it is zero or less). Used to warm the caches at startup.
+     */
+    void forEachProfile(int limit, BiConsumer<String, Profile> action);
+
+    /**
+     * Streams every player's current name.
+     */
+    void forEachPlayerName(Consumer<PlayerName> action);
+
+    /**
+     * Writes imported profiles and names in one transaction, replacing the stored flags and the skills present
+     * in each profile. Callers split large imports into chunks.
+     */
+    void importChunk(Map<String, Profile> profiles, List<PlayerName> names);
+
+    /**
+     * Writes a consistent snapshot of the stored data in the background and completes with its path.
+     * Completes exceptionally with a {@link DatabaseManager.DatabaseException} if the store cannot be backed up.
+     */
+    CompletableFuture<Path> backup();
+
+    DatabaseWriteStats.Snapshot getWriteStats();
+
+    /**
+     * Whether a background migration is still copying legacy rows; full-table reads such as leaderboards
+     * only see the rows copied so far.
+     */
+    boolean isMigrationInProgress();
+}
@@ -0,0 +1,1952 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+import com.github.ob_yekt.simpleskills.Skills;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.DatabaseException;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.LeaderboardEntry;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.SkillData;
+import com.github.ob_yekt.simpleskills.managers.GroupCommit.IsolatedWrites;
+import com.github.ob_yekt.simpleskills.managers.GroupCommit.PendingWrite;
+import com.github.ob_yekt.simpleskills.managers.GroupCommit.StatementBinder;
+import com.github.ob_yekt.simpleskills.managers.GroupCommit.WriteKey;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The SQLite {@link SkillStore}: schema management, the compact and wide storage layouts, group commits
+ * ({@link GroupCommit}), the optional XP journal ({@link JournalFold}), the read pool and background maintenance
+ * for simpleskills.db.
+ */
+public final class SqliteSkillStore implements SkillStore {
+    static final String DATABASE_NAME = "simpleskills.db";
+    static final String JOURNAL_NAME = "simpleskills.journal";
+    private static final List<String> SKILLS = Arrays.stream(Skills.values())
+            .map(Skills::getId)
+            .toList();
+    // The writer connection; every mutation and single-player load goes through it under this instance's lock
+    private Connection connection;
+    // Read-only connections for leaderboards and full-table queries; null when database_read_pool_size is 0
+    private volatile ReadConnectionPool readPool;
+    private SqliteTuningProfile tuningProfile = SqliteTuningProfile.BALANCED;
+    private Path currentDatabasePath;
+    // Cleared by the health monitor or a failed statement; checkConnection() only validates when it is false
+    private volatile boolean connectionHealthy;
+    // Background thread for health checks and the legacy schema migration
+    private ScheduledExecutorService maintenance;
+    private ScheduledFuture<?> migrationTask;
+    // Runs snapshots one at a time, apart from maintenance so a long copy never delays checkpoints or folds
+    private volatile ScheduledExecutorService backups;
+    // Set while rows remain in the legacy TEXT-keyed player_skills table
+    private volatile boolean legacyMigrationPending;
+    private boolean vacuumOnClose;
+    // Last time a commit reached the database, used by the checkpoint scheduler to detect idle periods
+    private volatile long lastWriteMillis;
+    private long lastOptimizeMillis;
+    private static final long CHECKPOINT_IDLE_MS = 5_000;
+    private static final long OPTIMIZE_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+    // True when player data lives in the one-row-per-player player_profiles table (see WideProfileSchema)
+    private volatile boolean wideLayout;
+    // Set when the leaderboard tables are new or prepareSchema added skill columns, whose leaderboard rows have to be filled in
+    private boolean leaderboardRebuildNeeded;
+    // Stable small-integer IDs for skill names, persisted in the skill_ids table; journal appends read it without the lock
+    private final Map<String, Integer> skillOrdinals = new ConcurrentHashMap<>();
+    private final Map<Integer, String> skillNamesByOrdinal = new ConcurrentHashMap<>();
+    // Compiled statements for the current connection; cleared when the connection closes
+    private final StatementCache statementCache = new StatementCache();
+    // Mutations waiting for the writer thread; null when write-behind is disabled
+    private volatile WriteBehindQueue<WriteKey, PendingWrite> writeQueue;
+    private final DatabaseWriteStats writeStats = new DatabaseWriteStats();
+    // Takes skill saves instead of the write queue when database_xp_journal_enabled is set; null otherwise
+    private volatile XpJournal journal;
+    // XP gains waiting for xp_events; only filled while database_xp_history_enabled is set
+    private final XpHistory xpHistory = new XpHistory();
+    private volatile boolean xpHistoryEnabled;
+
+    static final String SAVE_SKILL_SQL = "INSERT OR REPLACE INTO player_skills_v2 (player_id, skill, xp, level) VALUES (?, ?, ?, ?)";
+    // Rewrites every row rather than updating in place, so legacy rows migrated later cannot undo a reset
+    private static final String RESET_SKILLS_SQL = "INSERT OR REPLACE INTO player_skills_v2 (player_id, skill, xp, level) SELECT ?, skill, 0, 1 FROM skill_ids";
+    private static final String UPDATE_NAME_SQL = PlayerNameSchema.saveNameSql();
+    static final String SELECT_SKILLS_SQL = "SELECT skill, xp, level FROM player_skills_v2 WHERE player_id = ?";
+    // Skill rows of the most recently seen players, grouped by player; binds the limit (-1 for all)
+    private static final String SELECT_RECENT_PROFILES_SQL = """
+        SELECT r.player_uuid, r.prestige, r.is_ironman, r.is_tab_menu_visible, s.skill, s.xp, s.level
+        FROM (
+            SELECT p.player_uuid, p.prestige, p.is_ironman, p.is_tab_menu_visible, n.last_seen
+            FROM players p
+            LEFT JOIN player_current_name n ON n.uuid = p.player_uuid
+            ORDER BY n.last_seen DESC
+            LIMIT ?
+        ) r
+        LEFT JOIN player_skills_v2 s ON s.player_id = %s
+        ORDER BY r.last_seen DESC, r.player_uuid""".formatted(PlayerIds.UUID_TO_BLOB_SQL.formatted("r.player_uuid"));
+    // The same while player_skills is still being migrated: legacy rows follow the migrated ones for each
+    // player, so a skill already in player_skills_v2 wins
+    private static final String SELECT_RECENT_PROFILES_WITH_LEGACY_SQL = """
+        WITH r AS MATERIALIZED (
+            SELECT p.player_uuid, p.prestige, p.is_ironman, p.is_tab_menu_visible, n.last_seen
+            FROM players p
+            LEFT JOIN player_current_name n ON n.uuid = p.player_uuid
+            ORDER BY n.last_seen DESC
+            LIMIT ?
+        )
+        SELECT r.player_uuid, r.prestige, r.is_ironman, r.is_tab_menu_visible, r.last_seen, s.skill, s.xp, s.level, 0 AS source
+        FROM r
+        LEFT JOIN player_skills_v2 s ON s.player_id = %s
+        UNION ALL
+        SELECT r.player_uuid, r.prestige, r.is_ironman, r.is_tab_menu_visible, r.last_seen, k.skill,
+               COALESCE(l.xp, 0), COALESCE(l.level, 1), 1 AS source
+        FROM r
+        JOIN player_skills l ON l.player_uuid = r.player_uuid
+        JOIN skill_ids k ON k.skill_id = l.skill_id
+        ORDER BY last_seen DESC, player_uuid, source""".formatted(PlayerIds.UUID_TO_BLOB_SQL.formatted("r.player_uuid"));
+    private static final String COPY_LEGACY_PLAYER_SQL = """
+        INSERT OR IGNORE INTO player_skills_v2 (player_id, skill, xp, level)
+        SELECT ?, s.skill, COALESCE(l.xp, 0), COALESCE(l.level, 1)
+        FROM player_skills l
+        JOIN skill_ids s ON s.skill_id = l.skill_id
+        WHERE l.player_uuid = ?""";
+    private static final String DELETE_LEGACY_PLAYER_SQL = "DELETE FROM player_skills WHERE player_uuid = ?";
+    private static final String SELECT_PLAYER_SQL = "SELECT prestige, is_ironman, is_tab_menu_visible FROM players WHERE player_uuid = ?";
+    private static final String IMPORT_PLAYER_SQL = "INSERT OR REPLACE INTO players (player_uuid, is_ironman, is_tab_menu_visible, prestige) VALUES (?, ?, ?, ?)";
+    private static final String SET_PRESTIGE_SQL = "UPDATE players SET prestige = ? WHERE player_uuid = ?";
+    private static final String SET_IRONMAN_SQL = "UPDATE players SET is_ironman = ? WHERE player_uuid = ?";
+    private static final String SET_TAB_MENU_SQL = "UPDATE players SET is_tab_menu_visible = ? WHERE player_uuid = ?";
+
+    @Override
+    public void open(Path dataDirectory) {
+        Path newDatabasePath = dataDirectory.resolve(DATABASE_NAME);
+
+        // Pending writes belong to the previous database, so drain them before switching
+        stopWriteBehind();
+        stopMaintenance();
+        stopBackups();
+        openDatabase(dataDirectory, newDatabasePath);
+        startMaintenance();
+        startBackups();
+        startWriteBehind();
+    }
+
+    @Override
+    public synchronized boolean isOpenAt(Path dataDirectory) {
+        return currentDatabasePath != null && currentDatabasePath.equals(dataDirectory.resolve(DATABASE_NAME)) && isConnectionValid();
+    }
+
+    private synchronized void openDatabase(Path worldDirectory, Path newDatabasePath) {
+        closeXpHistory();
+        closeJournal();
+        closeReadPool();
+        closeConnection();
+
+        try {
+            Files.createDirectories(worldDirectory);
+            connection = DriverManager.getConnection("jdbc:sqlite:" + newDatabasePath);
+            connection.setAutoCommit(true);
+            applyPragmas();
+            currentDatabasePath = newDatabasePath;
+            wideLayout = "wide".equalsIgnoreCase(ConfigManager.getFeatureString("database_storage_layout", "compact"));
+            prepareSchema();
+            prepareLeaderboards(convertStorageLayout());
+            preparePlayerNames();
+            xpHistoryEnabled = ConfigManager.getFeatureBoolean("database_xp_history_enabled", false);
+            Path journalPath = worldDirectory.resolve(JOURNAL_NAME);
+            boolean journalEnabled = ConfigManager.getFeatureBoolean("database_xp_journal_enabled", false);
+            if (journalEnabled || Files.exists(journalPath)) {
+                openJournal(journalPath);
+            }
+            if (!journalEnabled && journal != null) {
+                // Left over from a run with the journal enabled; everything in it was just replayed
+                closeJournal();
+                Files.deleteIfExists(journalPath);
+            }
+            openReadPool(newDatabasePath);
+            connectionHealthy = true;
+            Simpleskills.LOGGER.info("Connected to SQLite database at: {}", newDatabasePath);
+        } catch (SQLException | java.io.IOException e) {
+            markConnectionSuspect();
+            Simpleskills.LOGGER.error("Failed to initialize database at {}.", newDatabasePath, e);
+            throw new DatabaseException("Database initialization failed", e);
+        }
+    }
+
+    private void startWriteBehind() {
+        if (!ConfigManager.getFeatureBoolean("database_write_behind_enabled", true)) {
+            Simpleskills.LOGGER.info("Database write-behind disabled; mutations are committed one by one.");
+            return;
+        }
+        long commitWindowMs = ConfigManager.getFeatureInt("database_flush_interval_ms", 1000);
+        int batchSize = ConfigManager.getFeatureInt("database_flush_batch_size", 256);
+        writeQueue = new WriteBehindQueue<>("simpleskills-db-writer", commitWindowMs, batchSize, this::flushPendingWrites);
+        Simpleskills.LOGGER.info("Database group commit enabled (commit window {} ms, max {} writes).", commitWindowMs, batchSize);
+    }
+
+    /**
+     * Stops the writer thread and drains its queue. Must not be called while holding this
+     * instance's lock, since the final flush on the writer thread needs it.
+     */
+    private void stopWriteBehind() {
+        WriteBehindQueue<WriteKey, PendingWrite> queue = writeQueue;
+        if (queue != null) {
+            queue.shutdown();
+            writeQueue = null;
+            DatabaseWriteStats.Snapshot stats = writeStats.snapshot();
+            Simpleskills.LOGGER.info("Database group commit: {} writes in {} commits (avg batch {}, avg commit {} ms).",
+                    stats.writes(), stats.commits(), String.format("%.1f", stats.averageBatchSize()), String.format("%.2f", stats.averageCommitMillis()));
+        }
+    }
+
+    /**
+     * Queues a mutation for the next group commit, or runs it immediately when write-behind is disabled.
+     * DatabaseManager updates its caches itself, so reads stay consistent before the write reaches disk.
+     */
+    private void submitWrite(WriteKey key, String action, String sql, StatementBinder binder) {
+        WriteBehindQueue<WriteKey, PendingWrite> queue = writeQueue;
+        if (queue != null) {
+            queue.put(key, new PendingWrite(sql, binder, 0));
+        } else {
+            executeWrite(key, action, sql, binder);
+        }
+    }
+
+    private synchronized void executeWrite(WriteKey key, String action, String sql, StatementBinder binder) {
+        checkConnection();
+        try {
+            PreparedStatement statement = prepareCached(sql);
+            binder.bind(statement);
+            statement.executeUpdate();
+            lastWriteMillis = System.currentTimeMillis();
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            Simpleskills.LOGGER.error("Failed to {} for UUID {}: {}", action, key.playerUuid(), e.getMessage());
+            throw new DatabaseException("Failed to " + action, e);
+        }
+    }
+
+    /**
+     * Commits every queued mutation in a single transaction, see {@link GroupCommit}. Runs on the writer thread,
+     * and on the caller thread for profile loads and imports, which hold this instance's lock; other reads ask
+     * the writer thread.
+     */
+    private synchronized void flushPendingWrites() {
+        flushPendingWrites(false, null);
+    }
+
+    /**
+     * The same, for a read that needs the writes on disk. A read cannot wait out ISOLATE_AFTER_FAILURES flushes,
+     * so a failed batch is isolated at once, and the read only fails if one of the reading player's own writes
+     * could not be committed. {@code readingPlayer} is null for reads that span every player.
+     */
+    private synchronized void flushPendingWrites(boolean forRead, String readingPlayer) {
+        if (writeQueue == null) {
+            return;
+        }
+        checkConnection();
+        Map<WriteKey, PendingWrite> batch = writeQueue.drain();
+        if (batch.isEmpty()) {
+            return;
+        }
+        boolean isolate = GroupCommit.needsIsolation(batch);
+
+        IsolatedWrites uncommitted;
+        try {
+            uncommitted = commitPendingWrites(batch, isolate);
+        } catch (SQLException e) {
+            if (!forRead || isolate) {
+                requeueFailedBatch(batch, e);
+                throw new DatabaseException("Failed to commit pending writes", e);
+            }
+            writeStats.recordFailure();
+            Simpleskills.LOGGER.warn("Failed to commit {} pending writes before a read; retrying them one at a time: {}",
+                    batch.size(), e.getMessage());
+            try {
+                uncommitted = commitPendingWrites(batch, true);
+            } catch (SQLException isolatedEx) {
+                requeueFailedBatch(batch, isolatedEx);
+                throw new DatabaseException("Failed to commit pending writes", isolatedEx);
+            }
+        }
+        if (forRead && readingPlayer != null && uncommitted.affects(readingPlayer)) {
+            throw new DatabaseException("Failed to commit pending writes for UUID " + readingPlayer, null);
+        }
+    }
+
+    /**
+     * Commits a drained batch on the writer connection and requeues the writes left out of it.
+     */
+    private IsolatedWrites commitPendingWrites(Map<WriteKey, PendingWrite> batch, boolean isolate) throws SQLException {
+        try {
+            IsolatedWrites uncommitted = GroupCommit.commit(connection, this::prepareCached, batch, isolate, writeStats);
+            lastWriteMillis = System.currentTimeMillis();
+            if (!uncommitted.failed().isEmpty()) {
+                writeQueue.requeue(uncommitted.failed());
+            }
+            return uncommitted;
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            throw e;
+        }
+    }
+
+    private void requeueFailedBatch(Map<WriteKey, PendingWrite> batch, SQLException e) {
+        writeQueue.requeue(GroupCommit.failedBatch(batch));
+        writeStats.recordFailure();
+        Simpleskills.LOGGER.error("Failed to commit {} pending writes: {}", batch.size(), e.getMessage());
+    }
+
+    @Override
+    public DatabaseWriteStats.Snapshot getWriteStats() {
+        return writeStats.snapshot();
+    }
+
+    /**
+     * Opens the XP journal and replays whatever the last run left in it before anything else reads the tables.
+     */
+    private void openJournal(Path journalPath) throws java.io.IOException {
+        int sizeBytes = Math.max(1, ConfigManager.getFeatureInt("database_xp_journal_size_mb", 16)) << 20;
+        journal = new XpJournal(journalPath, sizeBytes);
+        int replayed = flushAll();
+        if (replayed > 0) {
+            Simpleskills.LOGGER.info("Replayed {} journaled skill saves into the database.", replayed);
+        }
+        Simpleskills.LOGGER.debug("Opened XP journal at {}.", journalPath);
+    }
+
+    /**
+     * Folds what is left and closes the journal. Records that cannot be folded stay in the file for the next start.
+     */
+    private void closeJournal() {
+        XpJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        try {
+            flushAll();
+        } catch (DatabaseException e) {
+            Simpleskills.LOGGER.error("Failed to fold the XP journal; it will be replayed on the next start: {}", e.getMessage());
+        }
+        journal = null;
+        current.close();
+    }
+
+    private void appendToJournal(XpJournal target, String playerUuid, String skillId, int xp, int level) {
+        UUID uuid = PlayerIds.parseUuid(playerUuid);
+        if (uuid == null) {
+            throw new DatabaseException("Invalid player UUID: " + playerUuid, null);
+        }
+        Integer ordinal = skillOrdinals.get(skillId);
+        int skill = ordinal != null ? ordinal : registerSkillOrdinal(skillId);
+        long now = System.currentTimeMillis();
+        while (!target.append(uuid, skill, xp, level, now)) {
+            // Both segments are full; fold on this thread to make room
+            flushAll();
+        }
+    }
+
+    private synchronized int registerSkillOrdinal(String skillId) {
+        checkConnection();
+        try {
+            return resolveSkillOrdinal(skillId);
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            Simpleskills.LOGGER.error("Failed to register skill {}: {}", skillId, e.getMessage());
+            throw new DatabaseException("Failed to register skill", e);
+        }
+    }
+
+    private void runJournalFold() {
+        try {
+            flushAll();
+        } catch (DatabaseException e) {
+            Simpleskills.LOGGER.error("Failed to fold the XP journal; will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Commits queued writes, then folds the XP journal into the tables, and returns how many journal records
+     * were folded. The order matters: a reset queued before a journaled save must not land after it.
+     */
+    private synchronized int flushAll() {
+        return flushAll(false, null);
+    }
+
+    /**
+     * The same, for a read; see {@link #flushPendingWrites(boolean, String)}.
+     */
+    private synchronized int flushAll(boolean forRead, String readingPlayer) {
+        flushPendingWrites(forRead, readingPlayer);
+        XpJournal current = journal;
+        if (current == null) {
+            return 0;
+        }
+        checkConnection();
+        int folded = 0;
+        int segment;
+        while ((segment = current.seal()) != -1) {
+            folded += foldJournalSegment(current, segment);
+        }
+        return folded;
+    }
+
+    private int foldJournalSegment(XpJournal current, int segment) {
+        try {
+            int folded = JournalFold.foldSegment(connection, this::prepareCached, current, segment, wideLayout, skillNamesByOrdinal, writeStats);
+            lastWriteMillis = System.currentTimeMillis();
+            return folded;
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            writeStats.recordFailure();
+            throw new DatabaseException("Failed to fold the XP journal", e);
+        }
+    }
+
+    @Override
+    public void recordXpGain(String playerUuid, String skillId, int xp, long timestamp) {
+        if (xpHistoryEnabled && xp > 0 && PlayerIds.parseUuid(playerUuid) != null) {
+            xpHistory.record(playerUuid, skillId, xp, timestamp);
+        }
+    }
+
+    /**
+     * Returns a player's hourly or daily XP buckets from {@code since} on, after rolling up the latest events.
+     */
+    @Override
+    public List<XpBucket> getXpHistory(String playerUuid, boolean daily, long since) {
+        List<XpBucket> buckets = new ArrayList<>();
+        try {
+            if (xpHistoryEnabled) {
+                rollUpXpEvents();
+            }
+            byte[] playerId = PlayerIds.playerId(playerUuid);
+            read(reader -> {
+                try (PreparedStatement statement = reader.prepareStatement(XpHistory.historySql(daily))) {
+                    statement.setBytes(1, playerId);
+                    statement.setLong(2, since);
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next()) {
+                            buckets.add(new XpBucket(result.getString("skill_id"), result.getLong("bucket"),
+                                    result.getLong("xp"), result.getLong("gains")));
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            Simpleskills.LOGGER.error("Failed to retrieve XP history for UUID {}: {}", playerUuid, e.getMessage());
+            throw new DatabaseException("Failed to retrieve XP history", e);
+        }
+        return buckets;
+    }
+
+    private void runXpHistoryFlush() {
+        try {
+            flushXpEvents();
+        } catch (DatabaseException e) {
+            // Already logged; the events were put back for the next run
+        }
+    }
+
+    private void runXpRollup() {
+        try {
+            rollUpXpEvents();
+        } catch (DatabaseException e) {
+            // Already logged; the next run picks up from the same watermark
+        }
+    }
+
+    /**
+     * Inserts the buffered XP gains into xp_events in one transaction.
+     */
+    private synchronized void flushXpEvents() {
+        long dropped = xpHistory.takeDropped();
+        if (dropped > 0) {
+            Simpleskills.LOGGER.warn("XP history buffer was full; dropped {} XP gains.", dropped);
+        }
+        Map<XpHistory.EventKey, long[]> batch = xpHistory.drain();
+        if (batch.isEmpty()) {
+            return;
+        }
+        checkConnection();
+        long startNanos = System.nanoTime();
+        try {
+            connection.setAutoCommit(false);
+            PreparedStatement statement = prepareCached(XpHistory.INSERT_EVENT_SQL);
+            // A batch that failed halfway may still hold rows from the previous attempt
+            statement.clearBatch();
+            for (Map.Entry<XpHistory.EventKey, long[]> entry : batch.entrySet()) {
+                XpHistory.EventKey key = entry.getKey();
+                statement.setBytes(1, PlayerIds.playerId(key.playerUuid()));
+                statement.setInt(2, resolveSkillOrdinal(key.skillId()));
+                statement.setLong(3, key.second());
+                statement.setLong(4, entry.getValue()[0]);
+                statement.setLong(5, entry.getValue()[1]);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+            lastWriteMillis = System.currentTimeMillis();
+            Simpleskills.LOGGER.debug("Wrote {} XP history events in {} us.", batch.size(), (System.nanoTime() - startNanos) / 1000);
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            }
+            xpHistory.requeue(batch);
+            Simpleskills.LOGGER.error("Failed to write {} XP history events: {}", batch.size(), e.getMessage());
+            throw new DatabaseException("Failed to write XP history", e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Adds the events written since the last rollup to the hourly and daily buckets, then deletes rolled-up
+     * events older than database_xp_history_raw_retention_hours and hourly buckets older than
+     * database_xp_history_hourly_retention_days. Daily buckets are kept.
+     */
+    private synchronized void rollUpXpEvents() {
+        flushXpEvents();
+        checkConnection();
+        long now = System.currentTimeMillis() / 1000;
+        long rawRetention = Math.max(1, ConfigManager.getFeatureInt("database_xp_history_raw_retention_hours", 48)) * (long) XpHistory.HOUR_SECONDS;
+        int hourlyRetentionDays = ConfigManager.getFeatureInt("database_xp_history_hourly_retention_days", 30);
+        long startNanos = System.nanoTime();
+        try {
+            connection.setAutoCommit(false);
+            long watermark = 0;
+            try (ResultSet result = prepareCached(XpHistory.SELECT_WATERMARK_SQL).executeQuery()) {
+                if (result.next()) {
+                    watermark = result.getLong(1);
+                }
+            }
+            long lastEvent;
+            try (ResultSet result = prepareCached(XpHistory.SELECT_LAST_EVENT_SQL).executeQuery()) {
+                lastEvent = result.next() ? result.getLong(1) : 0;
+            }
+            // Buckets written per pass, hourly then daily
+            int[] rolledUp = new int[2];
+            if (lastEvent > watermark) {
+                for (boolean daily : new boolean[]{false, true}) {
+                    PreparedStatement rollup = prepareCached(XpHistory.rollupSql(daily));
+                    rollup.setLong(1, watermark);
+                    rollup.setLong(2, lastEvent);
+                    rolledUp[daily ? 1 : 0] = rollup.executeUpdate();
+                }
+                PreparedStatement saveWatermark = prepareCached(XpHistory.SAVE_WATERMARK_SQL);
+                saveWatermark.setLong(1, lastEvent);
+                saveWatermark.executeUpdate();
+                watermark = lastEvent;
+            }
+            PreparedStatement pruneEvents = prepareCached(XpHistory.PRUNE_EVENTS_SQL);
+            pruneEvents.setLong(1, watermark);
+            pruneEvents.setLong(2, now - rawRetention);
+            int pruned = pruneEvents.executeUpdate();
+            if (hourlyRetentionDays > 0) {
+                PreparedStatement pruneHourly = prepareCached(XpHistory.PRUNE_HOURLY_SQL);
+                pruneHourly.setLong(1, now - hourlyRetentionDays * (long) XpHistory.DAY_SECONDS);
+                pruned += pruneHourly.executeUpdate();
+            }
+            connection.commit();
+            lastWriteMillis = System.currentTimeMillis();
+            if (rolledUp[0] > 0 || rolledUp[1] > 0 || pruned > 0) {
+                Simpleskills.LOGGER.debug("Rolled up XP history into {} hourly and {} daily buckets and pruned {} rows in {} us.",
+                        rolledUp[0], rolledUp[1], pruned, (System.nanoTime() - startNanos) / 1000);
+            }
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            }
+            Simpleskills.LOGGER.error("Failed to roll up XP history: {}", e.getMessage());
+            throw new DatabaseException("Failed to roll up XP history", e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered XP gains before the connection goes away; they are lost if that fails.
+     */
+    private void closeXpHistory() {
+        if (connection != null && currentDatabasePath != null) {
+            try {
+                flushXpEvents();
+            } catch (DatabaseException e) {
+                Simpleskills.LOGGER.error("Failed to write XP history on close: {}", e.getMessage());
+            }
+        }
+        xpHistory.drain();
+    }
+
+    private void startMaintenance() {
+        int intervalSeconds = Math.max(1, ConfigManager.getFeatureInt("database_health_check_interval_seconds", 30));
+        maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simpleskills-db-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::runHealthCheck, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        int checkpointSeconds = Math.max(1, ConfigManager.getFeatureInt("database_checkpoint_interval_seconds", 60));
+        maintenance.scheduleWithFixedDelay(this::runCheckpoint, checkpointSeconds, checkpointSeconds, TimeUnit.SECONDS);
+        if (journal != null) {
+            long foldMs = Math.max(1, ConfigManager.getFeatureInt("database_xp_journal_fold_interval_ms", 1000));
+            maintenance.scheduleWithFixedDelay(this::runJournalFold, foldMs, foldMs, TimeUnit.MILLISECONDS);
+        }
+        if (xpHistoryEnabled) {
+            long flushSeconds = Math.max(1, ConfigManager.getFeatureInt("database_xp_history_flush_interval_seconds", 10));
+            maintenance.scheduleWithFixedDelay(this::runXpHistoryFlush, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+            long rollupMinutes = Math.max(1, ConfigManager.getFeatureInt("database_xp_history_rollup_interval_minutes", 5));
+            maintenance.scheduleWithFixedDelay(this::runXpRollup, rollupMinutes, rollupMinutes, TimeUnit.MINUTES);
+        }
+        if (legacyMigrationPending) {
+            long delayMs = Math.max(1, ConfigManager.getFeatureInt("database_migration_chunk_delay_ms", 250));
+            migrationTask = maintenance.scheduleWithFixedDelay(this::runMigrationChunk, delayMs, delayMs, TimeUnit.MILLISECONDS);
+            Simpleskills.LOGGER.info("Migrating player_skills to the compact schema in the background.");
+        }
+    }
+
+    private void startBackups() {
+        backups = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simpleskills-db-backup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int intervalMinutes = ConfigManager.getFeatureInt("database_backup_interval_minutes", 0);
+        if (intervalMinutes > 0) {
+            backups.scheduleWithFixedDelay(this::runScheduledBackup, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+            Simpleskills.LOGGER.info("Backing up the database every {} minutes.", intervalMinutes);
+        }
+    }
+
+    private void stopBackups() {
+        if (backups != null) {
+            // A snapshot in progress uses its own connection and is left to finish
+            backups.shutdown();
+            backups = null;
+        }
+    }
+
+    private void runScheduledBackup() {
+        try {
+            writeBackup();
+        } catch (DatabaseException e) {
+            // Already logged; the next run tries again
+        }
+    }
+
+    @Override
+    public CompletableFuture<Path> backup() {
+        ScheduledExecutorService executor = backups;
+        if (executor == null) {
+            return CompletableFuture.failedFuture(new DatabaseException("No database connection available", null));
+        }
+        try {
+            return CompletableFuture.supplyAsync(this::writeBackup, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new DatabaseException("No database connection available", e));
+        }
+    }
+
+    private Path writeBackup() {
+        Path databasePath;
+        synchronized (this) {
+            databasePath = currentDatabasePath;
+        }
+        if (databasePath == null) {
+            throw new DatabaseException("No database connection available", null);
+        }
+        try {
+            // The snapshot must include writes still waiting in the queue or the journal
+            prepareRead();
+            return DatabaseBackup.snapshot(databasePath, ConfigManager.getFeatureInt("database_backup_retention", 7));
+        } catch (SQLException | java.io.IOException e) {
+            Simpleskills.LOGGER.error("Failed to back up database {}: {}", databasePath, e.getMessage());
+            throw new DatabaseException("Failed to back up database", e);
+        }
+    }
+
+    private void stopMaintenance() {
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+            maintenance = null;
+            migrationTask = null;
+        }
+    }
+
+    /**
+     * Validates the connection off the server thread and reconnects if it went bad, so the
+     * hot paths only have to look at {@link #connectionHealthy}.
+     */
+    private synchronized void runHealthCheck() {
+        if (currentDatabasePath == null) {
+            return;
+        }
+        if (isConnectionValid()) {
+            connectionHealthy = true;
+            return;
+        }
+        Simpleskills.LOGGER.warn("Database health check failed; reconnecting.");
+        connectionHealthy = false;
+        try {
+            reconnectIfNeeded();
+            connectionHealthy = connection != null;
+        } catch (DatabaseException e) {
+            Simpleskills.LOGGER.error("Background reconnect failed; will retry on next check or database call.");
+        }
+    }
+
+    /**
+     * Checkpoints the WAL off the server thread. When the database has been quiet for a few seconds the WAL is
+     * truncated and, at most hourly, PRAGMA optimize runs; under load a passive checkpoint only happens once the
+     * WAL outgrows database_wal_size_limit_mb, which keeps it from growing without bound.
+     */
+    private synchronized void runCheckpoint() {
+        if (connection == null || !connectionHealthy) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        boolean idle = now - lastWriteMillis >= CHECKPOINT_IDLE_MS;
+        boolean optimizeDue = idle && now - lastOptimizeMillis >= OPTIMIZE_INTERVAL_MS;
+        long walBytes = walFileSize();
+        long limitBytes = (long) Math.max(1, ConfigManager.getFeatureInt("database_wal_size_limit_mb", 64)) << 20;
+        if ((walBytes == 0 && !optimizeDue) || (!idle && walBytes < limitBytes)) {
+            return;
+        }
+        try (Statement stmt = connection.createStatement()) {
+            if (walBytes > 0) {
+                try (ResultSet rs = stmt.executeQuery(idle ? "PRAGMA wal_checkpoint(TRUNCATE)" : "PRAGMA wal_checkpoint(PASSIVE)")) {
+                    if (rs.next() && rs.getInt(1) != 0) {
+                        Simpleskills.LOGGER.debug("WAL checkpoint could not complete; will retry on the next run.");
+                    }
+                }
+                Simpleskills.LOGGER.debug("Checkpointed {} KiB of WAL ({}).", walBytes / 1024, idle ? "idle" : "size limit");
+            }
+            if (optimizeDue) {
+                stmt.execute("PRAGMA optimize");
+                lastOptimizeMillis = now;
+                Simpleskills.LOGGER.debug("Ran PRAGMA optimize on database.");
+            }
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            Simpleskills.LOGGER.error("Failed to checkpoint the database: {}", e.getMessage());
+        }
+    }
+
+    private long walFileSize() {
+        Path walPath = currentDatabasePath.resolveSibling(currentDatabasePath.getFileName() + "-wal");
+        try {
+            return Files.exists(walPath) ? Files.size(walPath) : 0;
+        } catch (java.io.IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Enables WAL and applies the configured {@link SqliteTuningProfile} to the current connection.
+     */
+    private void applyPragmas() throws SQLException {
+        tuningProfile = SqliteTuningProfile.fromConfig();
+        try (Statement stmt = connection.createStatement()) {
+            // Enable WAL mode for better write performance
+            stmt.execute("PRAGMA journal_mode=WAL");
+            for (String pragma : tuningProfile.pragmas()) {
+                stmt.execute(pragma);
+            }
+        }
+        Simpleskills.LOGGER.debug("Applied SQLite tuning profile {}.", tuningProfile);
+    }
+
+    private void openReadPool(Path databasePath) throws SQLException {
+        int size = ConfigManager.getFeatureInt("database_read_pool_size", 2);
+        if (size <= 0) {
+            Simpleskills.LOGGER.info("Database read pool disabled; all queries use the writer connection.");
+            return;
+        }
+        readPool = new ReadConnectionPool(databasePath, size, tuningProfile);
+        Simpleskills.LOGGER.debug("Opened {} read-only database connections.", size);
+    }
+
+    private void closeReadPool() {
+        ReadConnectionPool pool = readPool;
+        if (pool != null) {
+            readPool = null;
+            pool.close();
+        }
+    }
+
+    /**
+     * Flags the connection for revalidation after a failed statement; the next call reconnects if needed.
+     */
+    private void markConnectionSuspect() {
+        connectionHealthy = false;
+    }
+
+    private boolean isConnectionValid() {
+        try {
+            return connection != null && !connection.isClosed() && connection.isValid(5);
+        } catch (SQLException e) {
+            Simpleskills.LOGGER.error("Error checking database connection validity: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Runs pending schema migrations, then loads what the store needs from the schema: the skill ordinals,
+     * whether legacy rows remain and, in the wide layout, columns for skills added since the table was created.
+     */
+    private void prepareSchema() {
+        try (Statement stmt = connection.createStatement()) {
+            if (SchemaMigrations.migrate(connection) < SchemaMigrations.LEADERBOARD_VERSION) {
+                leaderboardRebuildNeeded = true;
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'player_skills'")) {
+                legacyMigrationPending = rs.next();
+            }
+            loadSkillOrdinals(stmt);
+            if (wideLayout) {
+                List<String> columns = new ArrayList<>();
+                try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(player_profiles)")) {
+                    while (rs.next()) {
+                        columns.add(rs.getString("name"));
+                    }
+                }
+                for (String alter : WideProfileSchema.addMissingColumnsSql(columns)) {
+                    stmt.execute(alter);
+                    leaderboardRebuildNeeded = true;
+                }
+            }
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            Simpleskills.LOGGER.error("Failed to prepare the database schema: {}", e.getMessage());
+            throw new DatabaseException("Failed to prepare the database schema", e);
+        }
+    }
+
+    @Override
+    public synchronized void initializePlayer(String playerUuid) {
+        checkConnection();
+        String insertPlayerSql = "INSERT OR IGNORE INTO players (player_uuid, is_ironman, is_tab_menu_visible, prestige) VALUES (?, 0, 1, 0)";
+        String insertSkillSql = "INSERT OR IGNORE INTO player_skills_v2 (player_id, skill, xp, level) VALUES (?, ?, 0, 1)";
+        byte[] playerId = PlayerIds.playerId(playerUuid);
+
+        try {
+            // Legacy rows must land first, or the defaults below would shadow them
+            migrateLegacyPlayer(playerUuid);
+            connection.setAutoCommit(false);
+
+            if (wideLayout) {
+                PreparedStatement profileStmt = prepareCached("INSERT OR IGNORE INTO player_profiles (player_id) VALUES (?)");
+                profileStmt.setBytes(1, playerId);
+                profileStmt.executeUpdate();
+            } else {
+                PreparedStatement playerStmt = prepareCached(insertPlayerSql);
+                playerStmt.setString(1, playerUuid);
+                playerStmt.executeUpdate();
+
+                PreparedStatement skillStmt = prepareCached(insertSkillSql);
+                for (String skill : SKILLS) {
+                    skillStmt.setBytes(1, playerId);
+                    skillStmt.setInt(2, resolveSkillOrdinal(skill));
+                    skillStmt.executeUpdate();
+                }
+            }
+
+            connection.commit();
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            }
+            Simpleskills.LOGGER.error("Failed to initialize player UUID {}: {}", playerUuid, e.getMessage());
+            throw new DatabaseException("Failed to initialize player", e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean playerExists(String playerUuid) {
+        checkConnection();
+        String sql = "SELECT COUNT(*) FROM players WHERE player_uuid = ?";
+
+        try {
+            PreparedStatement statement;
+            if (wideLayout) {
+                statement = prepareCached("SELECT COUNT(*) FROM player_profiles WHERE player_id = ?");
+                statement.setBytes(1, PlayerIds.playerId(playerUuid));
+            } else {
+                statement = prepareCached(sql);
+                statement.setString(1, playerUuid);
+            }
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getInt(1) > 0;
+            }
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            Simpleskills.LOGGER.error("Failed to check player initialization for UUID {}: {}", playerUuid, e.getMessage());
+            throw new DatabaseException("Failed to check player initialization", e);
+        }
+    }
+
+    /**
+     * Streams player IDs from the players table (or player_profiles) on the read pool.
+     */
+    @Override
+    public void forEachPlayer(Consumer<UUID> action) {
+        try {
+            prepareRead();
+            boolean wide = wideLayout;
+            String sql = wide ? "SELECT player_id FROM player_profiles" : "SELECT player_uuid FROM players";
+            read(reader -> {
+                try (Statement statement = reader.createStatement();
+                     ResultSet result = statement.executeQuery(sql)) {
+                    while (result.next()) {
+                        UUID uuid = wide ? PlayerIds.uuidFromId(result.getBytes(1)) : PlayerIds.parseUuid(result.getString(1));
+                        if (uuid != null) {
+                            action.accept(uuid);
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            Simpleskills.LOGGER.error("Failed to iterate players: {}", e.getMessage());
+            throw new DatabaseException("Failed to iterate players", e);
+        }
+    }
+
+    /**
+     * Streams profiles with one forward-only query on a read connection, so the writer is never held up.
+     * Rows still waiting in player_skills are read alongside the migrated ones rather than migrated first.
+     */
+    @Override
+    public void forEachProfile(int limit, BiConsumer<String, Profile> action) {
+        try {
+            prepareRead();
+            boolean wide = wideLayout;
+            String sql = wide ? WideProfileSchema.selectRecentProfilesSql()
+                    : legacyMigrationPending ? SELECT_RECENT_PROFILES_WITH_LEGACY_SQL : SELECT_RECENT_PROFILES_SQL;
+            read(reader -> {
+                try (PreparedStatement statement = reader.prepareStatement(sql)) {
+                    statement.setInt(1, limit > 0 ? limit : -1);
+                    try (ResultSet result = statement.executeQuery()) {
+                        if (wide) {
+                            streamWideProfiles(result, action);
+                        } else {
+                            streamCompactProfiles(result, action);
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            Simpleskills.LOGGER.error("Failed to stream player profiles: {}", e.getMessage());
+            throw new DatabaseException("Failed to stream player profiles", e);
+        }
+    }
+
+    private static void streamWideProfiles(ResultSet result, BiConsumer<String, Profile> action) throws SQLException {
+        while (result.next()) {
+            UUID uuid = PlayerIds.uuidFromId(result.getBytes("player_id"));
+            if (uuid == null) {
+                continue;
+            }
+            Map<String, SkillData> skills = new HashMap<>();
+            for (Skills skill : Skills.values()) {
+                skills.put(skill.getId(), new SkillData(result.getInt(WideProfileSchema.xpColumn(skill)),
+                        result.getInt(WideProfileSchema.levelColumn(skill))));
+            }
+            action.accept(uuid.toString(), new Profile(skills, result.getInt("prestige"), result.getInt("is_ironman") == 1,
+                    result.getInt("is_tab_menu_visible") == 1));
+        }
+    }
+
+    private void streamCompactProfiles(ResultSet result, BiConsumer<String, Profile> action) throws SQLException {
+        String current = null;
+        Map<String, SkillData> skills = null;
+        int prestige = 0;
+        boolean ironman = false;
+        boolean tabMenuVisible = true;
+        while (result.next()) {
+            String playerUuid = result.getString("player_uuid");
+            if (!playerUuid.equals(current)) {
+                if (current != null) {
+                    action.accept(current, new Profile(skills, prestige, ironman, tabMenuVisible));
+                }
+                current = playerUuid;
+                skills = new HashMap<>();
+                prestige = result.getInt("prestige");
+                ironman = result.getInt("is_ironman") == 1;
+                tabMenuVisible = result.getInt("is_tab_menu_visible") == 1;
+            }
+            int skill = result.getInt("skill");
+            String skillId = result.wasNull() ? null : skillNamesByOrdinal.get(skill);
+            if (skillId != null) {
+                skills.putIfAbsent(skillId, new SkillData(result.getInt("xp"), result.getInt("level")));
+            }
+        }
+        if (current != null) {
+            action.accept(current, new Profile(skills, prestige, ironman, tabMenuVisible));
+        }
+    }
+
+    @Override
+    public void forEachPlayerName(Consumer<PlayerName> action) {
+        try {
+            prepareRead();
+            read(reader -> {
+                try (Statement statement = reader.createStatement();
+                     ResultSet result = statement.executeQuery("SELECT uuid, name, last_seen FROM player_current_name")) {
+                    while (result.next()) {
+                        action.accept(new PlayerName(result.getString("uuid"), result.getString("name"), result.getLong("last_seen")));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            Simpleskills.LOGGER.error("Failed to iterate player names: {}", e.getMessage());
+            throw new DatabaseException("Failed to iterate player names", e);
+        }
+    }
+
+    /**
+     * Writes one chunk of an import in a single transaction on the writer connection. Queued writes are
+     * flushed first and each imported player's legacy rows are migrated in the same transaction, so neither
+     * can overwrite the imported rows afterwards.
+     */
+    @Override
+    public synchronized void importChunk(Map<String, Profile> profiles, List<PlayerName> names) {
+        long startNanos = System.nanoTime();
+        try {
+            checkConnection();
+            flushAll();
+            connection.setAutoCommit(false);
+            for (Map.Entry<String, Profile> entry : profiles.entrySet()) {
+                if (legacyMigrationPending) {
+                    copyLegacyPlayer(entry.getKey());
+                }
+                if (wideLayout) {
+                    importWideProfile(entry.getKey(), entry.getValue());
+                } else {
+                    importCompactProfile(entry.getKey(), entry.getValue());
+                }
+            }
+            PreparedStatement nameStatement = prepareCached(UPDATE_NAME_SQL);
+            for (PlayerName name : names) {
+                nameStatement.setString(1, name.playerUuid());
+                nameStatement.setString(2, name.name());
+                nameStatement.setLong(3, name.lastSeen());
+                nameStatement.executeUpdate();
+            }
+            connection.commit();
+            lastWriteMillis = System.currentTimeMillis();
+            writeStats.recordCommit(profiles.size() + names.size(), System.nanoTime() - startNanos);
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            }
+            writeStats.recordFailure();
+            Simpleskills.LOGGER.error("Failed to import {} players: {}", profiles.size(), e.getMessage());
+            throw new DatabaseException("Failed to import player data", e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void importCompactProfile(String playerUuid, Profile profile) throws SQLException {
+        PreparedStatement player = prepareCached(IMPORT_PLAYER_SQL);
+        player.setString(1, playerUuid);
+        player.setInt(2, profile.ironman() ? 1 : 0);
+        player.setInt(3, profile.tabMenuVisible() ? 1 : 0);
+        player.setInt(4, profile.prestige());
+        player.executeUpdate();
+        byte[] playerId = PlayerIds.playerId(playerUuid);
+        PreparedStatement skills = prepareCached(SAVE_SKILL_SQL);
+        skills.clearBatch();
+        for (Map.Entry<String, SkillData> skill : profile.skills().entrySet()) {
+            skills.setBytes(1, playerId);
+            skills.setInt(2, resolveSkillOrdinal(skill.getKey()));
+            skills.setInt(3, skill.getValue().xp());
+            skills.setInt(4, skill.getValue().level());
+            skills.addBatch();
+        }
+        skills.executeBatch();
+    }
+
+    private void importWideProfile(String playerUuid, Profile profile) throws SQLException {
+        byte[] playerId = PlayerIds.playerId(playerUuid);
+        for (Map.Entry<String, SkillData> skill : profile.skills().entrySet()) {
+            Skills wideSkill = WideProfileSchema.skillFor(skill.getKey());
+            if (wideSkill == null) {
+                continue; // The wide layout only has columns for current skills
+            }
+            PreparedStatement statement = prepareCached(WideProfileSchema.upsertSkillSql(wideSkill));
+            statement.setBytes(1, playerId);
+            statement.setInt(2, skill.getValue().xp());
+            statement.setInt(3, skill.getValue().level());
+            statement.executeUpdate();
+        }
+        int[] flags = {profile.prestige(), profile.ironman() ? 1 : 0, profile.tabMenuVisible() ? 1 : 0};
+        String[] columns = {"prestige", "is_ironman", "is_tab_menu_visible"};
+        for (int i = 0; i < columns.length; i++) {
+            PreparedStatement statement = prepareCached(WideProfileSchema.upsertFlagSql(columns[i]));
+            statement.setBytes(1, playerId);
+            statement.setInt(2, flags[i]);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes every hourly or daily XP bucket, so {@link ShardedSkillStore} can copy the history again after an
+     * interrupted copy without adding it twice.
+     */
+    synchronized void clearXpHistory(boolean daily) {
+        checkConnection();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate(XpHistory.clearBucketsSql(daily));
+            lastWriteMillis = System.currentTimeMillis();
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            Simpleskills.LOGGER.error("Failed to clear the XP history: {}", e.getMessage());
+            throw new DatabaseException("Failed to clear XP history", e);
+        }
+    }
+
+    /**
+     * Adds one chunk of hourly or daily XP buckets copied from another database in a single transaction,
+     * summing them into buckets that already exist. Used when {@link ShardedSkillStore} copies an unsharded
+     * database; the skill of each bucket is looked up by ID, since ordinals differ between databases.
+     */
+    synchronized void importXpHistory(boolean daily, Map<String, List<XpBucket>> bucketsByPlayer) {
+        long startNanos = System.nanoTime();
+        int count = 0;
+        checkConnection();
+        try {
+            connection.setAutoCommit(false);
+            PreparedStatement statement = prepareCached(XpHistory.importBucketSql(daily));
+            for (Map.Entry<String, List<XpBucket>> entry : bucketsByPlayer.entrySet()) {
+                byte[] playerId = PlayerIds.playerId(entry.getKey());
+                for (XpBucket bucket : entry.getValue()) {
+                    statement.setBytes(1, playerId);
+                    statement.setInt(2, resolveSkillOrdinal(bucket.skillId()));
+                    statement.setLong(3, bucket.start());
+                    statement.setLong(4, bucket.xp());
+                    statement.setLong(5, bucket.gains());
+                    statement.addBatch();
+                    count++;
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+            lastWriteMillis = System.currentTimeMillis();
+            writeStats.recordCommit(count, System.nanoTime() - startNanos);
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            }
+            writeStats.recordFailure();
+            Simpleskills.LOGGER.error("Failed to import {} XP history buckets: {}", count, e.getMessage());
+            throw new DatabaseException("Failed to import XP history", e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Anything that is not a real UUID is skipped by full-table iteration
+    @Override
+    public void savePlayerName(String playerUuid, String playerName, long lastSeen) {
+        submitWrite(new WriteKey(playerUuid, "name"), "update player name", UPDATE_NAME_SQL, statement -> {
+            statement.setString(1, playerUuid);
+            statement.setString(2, playerName);
+            statement.setLong(3, lastSeen);
+        });
+    }
+
+    /**
+     * Starts a group commit of the write queue right away. Journaled skill saves are already on disk
+     * and are folded on the usual schedule.
+     */
+    @Override
+    public void requestFlush(String playerUuid) {
+        WriteBehindQueue<WriteKey, PendingWrite> queue = writeQueue;
+        if (queue != null) {
+            queue.requestFlush();
+        }
+    }
+
+    /**
+     * Reads the player's skills and flags after committing pending writes, so the result reflects every save
+     * submitted so far. In the compact layout this is two indexed lookups; in the wide layout one row.
+     */
+    @Override
+    public synchronized Profile loadProfile(String playerUuid) {
+        checkConnection();
+        flushAll(true, playerUuid);
+
+        try {
+            if (wideLayout) {
+                return loadWideProfile(playerUuid);
+            }
+            migrateLegacyPlayer(playerUuid);
+            Map<String, SkillData> skills = new HashMap<>();
+            PreparedStatement statement = prepareCached(SELECT_SKILLS_SQL);
+            statement.setBytes(1, PlayerIds.playerId(playerUuid));
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    String skillId = skillNamesByOrdinal.get(result.getInt("skill"));
+                    int xp = result.getInt("xp");
+                    int level = result.getInt("level");
+                    if (skillId != null) {
+                        skills.put(skillId, new SkillData(xp, level));
+                    }
+                }
+            }
+            PreparedStatement playerStmt = prepareCached(SELECT_PLAYER_SQL);
+            playerStmt.setString(1, playerUuid);
+            try (ResultSet result = playerStmt.executeQuery()) {
+                if (result.next()) {
+                    return new Profile(skills, result.getInt("prestige"), result.getInt("is_ironman") == 1,
+                            result.getInt("is_tab_menu_visible") == 1);
+                }
+            }
+            return skills.isEmpty() ? null : new Profile(skills, 0, false, true);
+        } catch (SQLException e) {
+            markConnectionSuspect();
+            Simpleskills.LOGGER.error("Failed to load profile for UUID {}: {}", playerUuid, e.getMessage());
+            throw new DatabaseException("Failed to load profile", e);
+        }
+    }
+
+    @Override
+    public void saveSkill(String playerUuid, String skillId, int xp, int level, PlayerProfile profile) {
+        XpJournal currentJournal = journal;
+        if (currentJournal != null) {
+            appendToJournal(currentJournal, playerUuid, skillId, xp, level);
+            return;
+        }
+        byte[] playerId = PlayerIds.playerId(playerUuid);
+        if (wideLayout) {
+            submitWideSkillSave(playerUuid, playerId, skillId, xp, level, profile);
+        } else {
+            submitWrite(new WriteKey(playerUuid, skillId), "save skill data", SAVE_SKILL_SQL, statement -> {
+                statement.setBytes(1, playerId);
+                statement.setInt(2, resolveSkillOrdinal(skillId));
+                statement.setInt(3, xp);
+                statement.setInt(4, level);
+            });
+        }
+    }
+
+    /**
+     * Saves into the wide layout. Once the caller has the whole profile, every save becomes one upsert of all
+     * skill columns under a single key, so a burst of XP across skills coalesces into one row write.
+     */
+    private void submitWideSkillSave(String playerUuid, byte[] playerId, String skillId, int xp, int level, PlayerProfile profile) {
+        if (profile != null && profile.hasAllSkills()) {
+            Skills[] skills = Skills.values();
+            int[] values = new int[skills.length * 2];
+            for (int i = 0; i < skills.length; i++) {
+                values[i * 2] = profile.xp(skills[i]);
+                values[i * 2 + 1] = profile.level(skills[i]);
+            }
+            submitWideProfileWrite(playerUuid, playerId, "save skill data", values);
+            return;
+        }
+        Skills skill = WideProfileSchema.skillFor(skillId);
+        if (skill == null) {
+            throw new DatabaseException("Unknown skill for the wide storage layout: " + skillId, null);
+        }
+        submitWrite(new WriteKey(playerUuid, skillId), "save skill data", WideProfileSchema.upsertSkillSql(skill), statement -> {
+            statement.setBytes(1, playerId);
+            statement.setInt(2, xp);
+            statement.setInt(3, level);
+        });
+    }
+
+    private void submitWideProfileWrite(String playerUuid, byte[] playerId, String action, int[] values) {
+        submitWrite(new WriteKey(playerUuid, "skills"), action, WideProfileSchema.upsertAllSkillsSql(), statement -> {
+            statement.setBytes(1, playerId);
+            for (int i = 0; i < values.length; i++) {
+                statement.setInt(i + 2, values[i]);
+            }
+        });
+    }
+
+    /**
+     * Submits a prestige, Ironman or tab menu flag change in whichever layout is active.
+     */
+    private void submitFlagWrite(String playerUuid, String column, String action, String compactSql, int value) {
+        if (wideLayout) {
+            byte[] playerId = PlayerIds.playerId(playerUuid);
+            submitWrite(new WriteKey(playerUuid, column), action, WideProfileSchema.upsertFlagSql(column), statement -> {
+                statement.setBytes(1, playerId);
+                statement.setInt(2, value);
+            });
+        } else {
+            submitWrite(new WriteKey(playerUuid, column), action, compactSql, statement -> {
+                statement.setInt(1, value);
+                statement.setString(2, playerUuid);
+            });
+        }
+    }
+
+    @Override
+    public void resetSkills(String playerUuid) {
+        byte[] playerId = PlayerIds.playerId(playerUuid);
+        if (journal != null) {
+            // Journaled saves made before the reset have to reach the tables first
+            flushAll();
+        }
+        if (wideLayout) {
+            int[] values = new int[SKILLS.size() * 2];
+            for (int i = 0; i < SKILLS.size(); i++) {
+                values[i * 2 + 1] = 1;
+            }
+            submitWideProfileWrite(playerUuid, playerId, "reset skills", values);
+        } else {
+            submitWrite(new WriteKey(playerUuid, "reset"), "reset skills", RESET_SKILLS_SQL,
+                    statement -> statement.setBytes(1, playerId));
+        }
+    }
+
+    @Override
+    public void savePrestige(String playerUuid, int prestige) {
+        submitFlagWrite(playerUuid, "prestige", "set prestige", SET_PRESTIGE_SQL, prestige);
+    }
+
+    @Override
+    public void saveIronmanMode(String playerUuid, boolean isIronman) {
+        submitFlagWrite(playerUuid, "is_ironman", "set Ironman mode", SET_IRONMAN_SQL, isIronman ? 1 : 0);
+    }
+
+    @Override
+    public void saveTabMenuVisibility(String playerUuid, boolean isVisible) {
+        submitFlagWrite(playerUuid, "is_tab_menu_visible", "set tab menu visibility", SET_TAB_MENU_SQL, isVisible ? 1 : 0);
+    }
+
+    @Override
+    public List<LeaderboardEntry> getSkillLeaderboard(String skillId, int limit, boolean ironmanOnly) {
+        List<LeaderboardEntry> leaderboard = new ArrayList<>();
+        try {
+            prepareRead();
+            Integer skill = skillOrdinal(skillId);
+            if (skill == null) {
+                return leaderboard;
+            }
+            read(reader -> {
+                try (PreparedStatement statement = reader.prepareStatement(LeaderboardSchema.skillLeaderboardSql(ironmanOnly))) {
+                    statement.setInt(1, skill);
+                    statement.setInt(2, limit);
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next()) {
+                            String playerUuid = result.getString("player_uuid");
+                            String playerName = result.getString("player_name");
+                            int level = result.getInt("level");
+                            int xp = result.getInt("xp");
+                            int prestige = result.getInt("prestige");
+                            leaderboard.add(new LeaderboardEntry(playerUuid, playerName, level, xp, prestige));
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            Simpleskills.LOGGER.error("Failed to retrieve {}leaderboard for skill {}: {}", ironmanOnly ? "Ironman " : "", skillId, e.getMessage());
+            throw new DatabaseException(ironmanOnly ? "Failed to retrieve Ironman skill leaderboard" : "Failed to retrieve skill leaderboard", e);
+        }
+        return leaderboard;
+    }
+
+    @Override
+    public List<LeaderboardEntry> getTotalLevelLeaderboard(int limit, boolean ironmanOnly) {
+        List<LeaderboardEntry> leaderboard = new ArrayList<>();
+        try {
+            prepareRead();
+            read(reader -> {
+                try (PreparedStatement statement = reader.prepareStatement(LeaderboardSchema.totalLevelLeaderboardSql(ironmanOnly))) {
+                    statement.setInt(1, limit);
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next()) {
+                            String playerUuid = result.getString("player_uuid");
+                            String playerName = result.getString("player_name");
+                            int totalLevel = result.getInt("total_level");
+                            int prestige = result.getInt("prestige");
+                            leaderboard.add(new LeaderboardEntry(playerUuid, playerName, totalLevel, 0, prestige));
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            Simpleskills.LOGGER.error("Failed to retrieve {}total level leaderboard: {}", ironmanOnly ? "Ironman " : "", e.getMessage());
+            throw new DatabaseException(ironmanOnly ? "Failed to retrieve Ironman total level leaderboard" : "Failed to retrieve total level leaderboard", e);
+        }
+        return leaderboard;
+    }
+
+    /**
+     * Commits pending writes and the journal so a read on another connection sees them. With write-behind on,
+     * the flush is handed to the writer thread and the caller only waits for it, so the commit and fsync never
+     * run on a reading thread. Callers must not hold this instance's lock, which the writer needs.
+     */
+    private void prepareRead() {
+        WriteBehindQueue<WriteKey, PendingWrite> queue = writeQueue;
+        if (queue == null) {
+            synchronized (this) {
+                checkConnection();
+                flushAll(true, null);
+            }
+            return;
+        }
+        try {
+            queue.runOnWriter(() -> {
+                synchronized (this) {
+                    checkConnection();
+                    flushAll(true, null);
+                }
+            }).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof DatabaseException databaseException) {
+                throw databaseException;
+            }
+            throw new DatabaseException("Failed to flush before a read", e.getCause());
+        }
+    }
+
+    @Override
+    public boolean isMigrationInProgress() {
+        return legacyMigrationPending;
+    }
+
+    private synchronized Integer skillOrdinal(String skillId) {
+        return skillOrdinals.get(skillId);
+    }
+
+    /**
+     * Runs a read-only query on the read pool, or on the writer connection when the pool is disabled.
+     */
+    private <T> T read(ReadConnectionPool.ReadTask<T> task) throws SQLException {
+        ReadConnectionPool pool = readPool;
+        if (pool != null) {
+            return pool.withConnection(task);
+        }
+        synchronized (this) {
+            checkConnection();
+            return task.run(connection);
+        }
+    }
+
+    /**
+     * Assigns stable ordinals to every known skill and caches the mapping. Legacy skill names are
+     * registered too, so rows for skills that no longer exist survive the migration.
+     */
+    private void loadSkillOrdinals(Statement stmt) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("INSERT OR IGNORE INTO skill_ids (skill_id) VALUES (?)")) {
+            for (String skill : SKILLS) {
+                insert.setString(1, skill);
+                insert.executeUpdate();
+            }
+        }
+        if (legacyMigrationPending) {
+            stmt.execute("INSERT OR IGNORE INTO skill_ids (skill_id) SELECT DISTINCT skill_id FROM player_skills WHERE skill_id IS NOT NULL");
+        }
+        skillOrdinals.clear();
+        skillNamesByOrdinal.clear();
+        try (ResultSet rs = stmt.executeQuery("SELECT skill, skill_id FROM skill_ids")) {
+            while (rs.next()) {
+                skillOrdinals.put(rs.getString("skill_id"), rs.getInt("skill"));
+                skillNamesByOrdinal.put(rs.getInt("skill"), rs.getString("skill_id"));
+            }
+        }
+    }
+
+    private int resolveSkillOrdinal(String skillId) throws SQLException {
+        Integer ordinal = skillOrdinals.get(skillId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT OR IGNORE INTO skill_ids (skill_id) VALUES (?)")) {
+            insert.setString(1, skillId);
+            insert.executeUpdate();
+        }
+        try (PreparedStatement select = connection.prepareStatement("SELECT skill FROM skill_ids WHERE skill_id = ?")) {
+            select.setString(1, skillId);
+            try (ResultSet rs = select.executeQuery()) {
+                rs.next();
+                ordinal = rs.getInt(1);
+            }
+        }
+        skillOrdinals.put(skillId, ordinal);
+        skillNamesByOrdinal.put(ordinal, skillId);
+        return ordinal;
+    }
+
+    /**
+     * Reads a player's whole profile row, so one lookup serves skills, prestige and both flags.
+     */
+    private Profile loadWideProfile(String playerUuid) throws SQLException {
+        PreparedStatement statement = prepareCached(WideProfileSchema.selectProfileSql());
+        statement.setBytes(1, PlayerIds.playerId(playerUuid));
+        try (ResultSet result = statement.executeQuery()) {
+            if (!result.next()) {
+                return null;
+            }
+            Map<String, SkillData> skills = new HashMap<>();
+            for (Skills skill : Skills.values()) {
+                skills.put(skill.getId(), new SkillData(result.getInt(WideProfileSchema.xpColumn(skill)),
+                        result.getInt(WideProfileSchema.levelColumn(skill))));
+            }
+            return new Profile(skills, result.getInt("prestige"), result.getInt("is_ironman") == 1,
+                    result.getInt("is_tab_menu_visible") == 1);
+        }
+    }
+
+    /**
+     * Moves existing data into the layout selected by database_storage_layout, in one transaction.
+     * Only runs when the other layout still holds rows, i.e. right after the setting was changed.
+     * Returns whether anything was converted.
+     */
+    private boolean convertStorageLayout() throws SQLException {
+        boolean toWide;
+        if (wideLayout) {
+            if (!legacyMigrationPending && !tableHasRows("players") && !tableHasRows("player_skills_v2")) {
+                return false;
+            }
+            toWide = true;
+            finishLegacyMigration();
+        } else {
+            if (!tableExists("player_profiles") || !tableHasRows("player_profiles")) {
+                return false;
+            }
+            toWide = false;
+        }
+        Simpleskills.LOGGER.info("Converting player data to the {} storage layout...", toWide ? "wide" : "compact");
+        long startMillis = System.currentTimeMillis();
+        try (Statement stmt = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            // The old layout's triggers would maintain the leaderboards row by row; they are rebuilt once afterwards
+            dropTriggers(stmt, LeaderboardSchema.TRIGGER_PREFIX);
+            if (toWide) {
+                for (String sql : WideProfileSchema.fromCompactSql(PlayerIds.UUID_TO_BLOB_SQL)) {
+                    stmt.execute(sql);
+                }
+            } else {
+                stmt.execute(WideProfileSchema.copyFlagsToCompactSql());
+            }
+            for (Skills skill : Skills.values()) {
+                String sql = toWide ? WideProfileSchema.copySkillFromCompactSql(skill) : WideProfileSchema.copySkillToCompactSql(skill);
+                try (PreparedStatement copy = connection.prepareStatement(sql)) {
+                    copy.setInt(1, resolveSkillOrdinal(skill.getId()));
+                    copy.executeUpdate();
+                }
+            }
+            if (toWide) {
+                stmt.execute("DELETE FROM player_skills_v2");
+                stmt.execute("DELETE FROM players");
+            } else {
+                stmt.execute("DELETE FROM player_profiles");
+            }
+            connection.commit();
+            Simpleskills.LOGGER.info("Storage layout conversion finished in {} ms.", System.currentTimeMillis() - startMillis);
+            return true;
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            }
+            throw e;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Installs the leaderboard triggers of the active layout unless they are already in place, and refills
+     * the tables when they are new or the layout's data changed shape, all in one transaction.
+     */
+    private void prepareLeaderboards(boolean layoutConverted) throws SQLException {
+        boolean rebuild = layoutConverted || leaderboardRebuildNeeded;
+        Map<String, Integer> ordinals = new HashMap<>();
+        for (Skills skill : Skills.values()) {
+            ordinals.put(skill.getId(), resolveSkillOrdinal(skill.getId()));
+        }
+        List<String> triggers = wideLayout ? LeaderboardSchema.wideTriggersSql(ordinals) : LeaderboardSchema.compactTriggersSql(PlayerIds.UUID_TO_BLOB_SQL);
+        long startMillis = System.currentTimeMillis();
+        try (Statement stmt = connection.createStatement()) {
+            if (!rebuild && triggersMatch(stmt, LeaderboardSchema.TRIGGER_PREFIX, triggers)) {
+                return;
+            }
+            connection.setAutoCommit(false);
+            dropTriggers(stmt, LeaderboardSchema.TRIGGER_PREFIX);
+            for (String sql : triggers) {
+                stmt.execute(sql);
+            }
+            if (rebuild) {
+                for (String sql : wideLayout ? LeaderboardSchema.rebuildFromWideSql(ordinals) : LeaderboardSchema.rebuildFromCompactSql()) {
+                    stmt.execute(sql);
+                }
+            }
+            connection.commit();
+            leaderboardRebuildNeeded = false;
+            if (rebuild) {
+                Simpleskills.LOGGER.info("Rebuilt leaderboard tables in {} ms.", System.currentTimeMillis() - startMillis);
+            }
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            }
+            throw e;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Installs the name history triggers with the configured limit, unless they are already in place.
+     */
+    private void preparePlayerNames() throws SQLException {
+        int historyLimit = Math.max(1, ConfigManager.getFeatureInt("database_name_history_limit", 10));
+        List<String> triggers = PlayerNameSchema.triggersSql(historyLimit);
+        try (Statement stmt = connection.createStatement()) {
+            if (triggersMatch(stmt, PlayerNameSchema.TRIGGER_PREFIX, triggers)) {
+                return;
+            }
+            connection.setAutoCommit(false);
+            dropTriggers(stmt, PlayerNameSchema.TRIGGER_PREFIX);
+            for (String sql : triggers) {
+                stmt.execute(sql);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            }
+            throw e;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void dropTriggers(Statement stmt, String prefix) throws SQLException {
+        List<String> triggers = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery(triggersWithPrefixSql(prefix, "name"))) {
+            while (rs.next()) {
+                triggers.add(rs.getString(1));
+            }
+        }
+        for (String trigger : triggers) {
+            stmt.execute("DROP TRIGGER IF EXISTS \"" + trigger + "\"");
+        }
+    }
+
+    /**
+     * Whether the triggers with this prefix are exactly the given statements. SQLite keeps each trigger's
+     * CREATE text, trimmed, so an unchanged layout or configuration needs no DDL on connect.
+     */
+    private static boolean triggersMatch(Statement stmt, String prefix, List<String> expected) throws SQLException {
+        Set<String> installed = new HashSet<>();
+        try (ResultSet rs = stmt.executeQuery(triggersWithPrefixSql(prefix, "sql"))) {
+            while (rs.next()) {
+                installed.add(rs.getString(1).strip());
+            }
+        }
+        Set<String> wanted = new HashSet<>();
+        for (String sql : expected) {
+            wanted.add(sql.strip());
+        }
+        return installed.equals(wanted);
+    }
+
+    private static String triggersWithPrefixSql(String prefix, String column) {
+        return "SELECT " + column + " FROM sqlite_master WHERE type = 'trigger' AND name LIKE '"
+                + prefix.replace("_", "\\_") + "%' ESCAPE '\\'";
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            statement.setString(1, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private boolean tableHasRows(String table) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT EXISTS (SELECT 1 FROM " + table + ")")) {
+            return rs.next() && rs.getInt(1) == 1;
+        }
+    }
+
+    /**
+     * Moves one chunk of legacy rows per run, on the maintenance thread, so large databases
+     * migrate without stalling startup. Rows already written to the new table win over legacy ones.
+     */
+    private synchronized void runMigrationChunk() {
+        if (!legacyMigrationPending || connection == null) {
+            return;
+        }
+        try {
+            checkConnection();
+            int chunkRows = Math.max(1, ConfigManager.getFeatureInt("database_migration_chunk_rows", 5000));
+            if (migrateLegacyRows(chunkRows) == 0) {
+                completeLegacyMigration();
+            }
+        } catch (SQLException | DatabaseException e) {
+            markConnectionSuspect();
+            Simpleskills.LOGGER.error("Failed to migrate a chunk of player_skills; will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Migrates whatever is left in one go, before the storage layout is converted at startup.
+     */
+    private void finishLegacyMigration() throws SQLException {
+        if (!legacyMigrationPending) {
+            return;
+        }
+        Simpleskills.LOGGER.info("Finishing player_skills migration before converting the storage layout.");
+        while (migrateLegacyRows(50_000) > 0) {
+            // Keep going until the legacy table is empty
+        }
+        completeLegacyMigration();
+    }
+
+    private int migrateLegacyRows(int limit) throws SQLException {
+        String copySql = """
+        INSERT OR IGNORE INTO player_skills_v2 (player_id, skill, xp, level)
+        SELECT %s, s.skill, COALESCE(l.xp, 0), COALESCE(l.level, 1)
+        FROM (SELECT player_uuid, skill_id, xp, level FROM player_skills ORDER BY rowid LIMIT ?) l
+        JOIN skill_ids s ON s.skill_id = l.skill_id
+        WHERE length(%s) = 16
+    """.formatted(PlayerIds.UUID_TO_BLOB_SQL.formatted("l.player_uuid"), PlayerIds.UUID_TO_BLOB_SQL.formatted("l.player_uuid"));
+        String deleteSql = "DELETE FROM player_skills WHERE rowid IN (SELECT rowid FROM player_skills ORDER BY rowid LIMIT ?)";
+        StatementBinder bindLimit = statement -> statement.setInt(1, limit);
+        return runLegacyMigrationStep(copySql, bindLimit, deleteSql, bindLimit);
+    }
+
+    /**
+     * Copies a single player's legacy rows before their data is read, so the player never sees
+     * a half-migrated state while the background migration is still running.
+     */
+    private void migrateLegacyPlayer(String playerUuid) throws SQLException {
+        if (!legacyMigrationPending) {
+            return;
+        }
+        byte[] playerId = PlayerIds.playerId(playerUuid);
+        runLegacyMigrationStep(COPY_LEGACY_PLAYER_SQL, statement -> {
+            statement.setBytes(1, playerId);
+            statement.setString(2, playerUuid);
+        }, DELETE_LEGACY_PLAYER_SQL, statement -> statement.setString(1, playerUuid));
+    }
+
+    /**
+     * The same copy and delete as {@link #migrateLegacyPlayer}, inside the caller's transaction.
+     */
+    private void copyLegacyPlayer(String playerUuid) throws SQLException {
+        PreparedStatement copy = prepareCached(COPY_LEGACY_PLAYER_SQL);
+        copy.setBytes(1, PlayerIds.playerId(playerUuid));
+        copy.setString(2, playerUuid);
+        copy.executeUpdate();
+        PreparedStatement delete = prepareCached(DELETE_LEGACY_PLAYER_SQL);
+        delete.setString(1, playerUuid);
+        delete.executeUpdate();
+    }
+
+    /**
+     * Runs a copy and the matching delete in one transaction and returns how many legacy rows were removed.
+     */
+    private int runLegacyMigrationStep(String copySql, StatementBinder copyBinder,
+                                       String deleteSql, StatementBinder deleteBinder) throws SQLException {
+        try (PreparedStatement copy = connection.prepareStatement(copySql);
+             PreparedStatement delete = connection.prepareStatement(deleteSql)) {
+            connection.setAutoCommit(false);
+            copyBinder.bind(copy);
+            copy.executeUpdate();
+            deleteBinder.bind(delete);
+            int removed = delete.executeUpdate();
+            connection.commit();
+            return removed;
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                Simpleskills.LOGGER.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            }
+            throw e;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to restore auto-commit: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void completeLegacyMigration() throws SQLException {
+        statementCache.evict(COPY_LEGACY_PLAYER_SQL);
+        statementCache.evict(DELETE_LEGACY_PLAYER_SQL);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS player_skills");
+        }
+        legacyMigrationPending = false;
+        vacuumOnClose = true;
+        if (migrationTask != null) {
+            migrationTask.cancel(false);
+            migrationTask = null;
+        }
+        Simpleskills.LOGGER.info("Finished migrating player_skills to the compact schema.");
+    }
+
+    private void reconnectIfNeeded() {
+        if (!isConnectionValid() && currentDatabasePath != null) {
+            Simpleskills.LOGGER.info("Reconnecting to database at {}", currentDatabasePath);
+            closeConnection();
+            try {
+                connection = DriverManager.getConnection("jdbc:sqlite:" + currentDatabasePath);
+                connection.setAutoCommit(true);
+                // Re-apply WAL mode and the tuning profile after reconnect; the schema only needs its version checked
+                applyPragmas();
+                SchemaMigrations.migrate(connection);
+                Simpleskills.LOGGER.info("Successfully reconnected to the database.");
+            } catch (SQLException e) {
+                markConnectionSuspect();
+                Simpleskills.LOGGER.error("Failed to reconnect to the database: {}", e.getMessage());
+                throw new DatabaseException("Database reconnection failed", e);
+            }
+        }
+    }
+
+    private void checkConnection() {
+        if (!connectionHealthy) {
+            reconnectIfNeeded();
+            connectionHealthy = connection != null;
+        }
+        if (connection == null) {
+            Simpleskills.LOGGER.error("No database connection available.");
+            throw new DatabaseException("No database connection available", null);
+        }
+    }
+
+    /**
+     * Returns the cached compiled statement for the SQL on the current connection; see {@link StatementCache}.
+     */
+    private PreparedStatement prepareCached(String sql) throws SQLException {
+        return statementCache.prepare(connection, sql);
+    }
+
+    private void closeConnection() {
+        statementCache.clear();
+        connectionHealthy = false;
+        if (connection != null) {
+            try {
+                connection.close();
+                Simpleskills.LOGGER.debug("Database connection closed.");
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.error("Failed to close database connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        stopWriteBehind();
+        stopMaintenance();
+        stopBackups();
+        closeDatabase();
+    }
+
+    private synchronized void closeDatabase() {
+        closeXpHistory();
+        closeJournal();
+        closeReadPool();
+        try {
+            if (connection != null && !connection.isClosed()) {
+                if (vacuumOnClose) {
+                    // Reclaims the pages freed by dropping the legacy table
+                    try (Statement vacuumStmt = connection.createStatement()) {
+                        vacuumStmt.execute("VACUUM");
+                        Simpleskills.LOGGER.info("Compacted database after the schema migration.");
+                    }
+                    vacuumOnClose = false;
+                }
+                // Run PRAGMA optimize before closing
+                try (PreparedStatement optimizeStmt = connection.prepareStatement("PRAGMA optimize;")) {
+                    optimizeStmt.execute();
+                    Simpleskills.LOGGER.debug("Ran PRAGMA optimize on database.");
+                }
+            }
+            closeConnection();
+            currentDatabasePath = null;
+        } catch (SQLException e) {
+            Simpleskills.LOGGER.error("Failed to optimize or close database: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Named SQLite PRAGMA presets, selected with database_tuning_profile in config.json.
+ * <ul>
+ *     <li>safe: fsync on every commit and SQLite's own WAL auto-checkpoints.</li>
+ *     <li>balanced: fsync only at checkpoints, larger page cache and mmap reads; checkpoints are left to the
+ *     background scheduler.</li>
+ *     <li>throughput: no fsync at all and the largest caches. A server crash loses nothing, but a power loss or
+ *     OS crash can lose the most recent commits.</li>
+ * </ul>
+ */
+enum SqliteTuningProfile {
+    SAFE("FULL", -2_000, 0L, "DEFAULT", 5_000, 1_000),
+    BALANCED("NORMAL", -16_000, 64L << 20, "MEMORY", 5_000, 0),
+    THROUGHPUT("OFF", -64_000, 256L << 20, "MEMORY", 10_000, 0);
+
+    private final String synchronous;
+    // Negative values are KiB, as PRAGMA cache_size expects
+    private final int cacheSize;
+    private final long mmapSize;
+    private final String tempStore;
+    private final int busyTimeoutMs;
+    // Pages; 0 disables automatic checkpoints
+    private final int walAutocheckpoint;
+
+    SqliteTuningProfile(String synchronous, int cacheSize, long mmapSize, String tempStore, int busyTimeoutMs, int walAutocheckpoint) {
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+        this.busyTimeoutMs = busyTimeoutMs;
+        this.walAutocheckpoint = walAutocheckpoint;
+    }
+
+    /**
+     * Returns the PRAGMA statements to run on every new connection, after journal_mode=WAL.
+     */
+    List<String> pragmas() {
+        return List.of(
+                "PRAGMA synchronous=" + synchronous,
+                "PRAGMA cache_size=" + cacheSize,
+                "PRAGMA mmap_size=" + mmapSize,
+                "PRAGMA temp_store=" + tempStore,
+                "PRAGMA busy_timeout=" + busyTimeoutMs,
+                "PRAGMA wal_autocheckpoint=" + walAutocheckpoint
+        );
+    }
+
+    /**
+     * Returns the subset of {@link #pragmas()} that applies to read-only connections.
+     */
+    List<String> readerPragmas() {
+        return List.of(
+                "PRAGMA cache_size=" + cacheSize,
+                "PRAGMA mmap_size=" + mmapSize,
+                "PRAGMA temp_store=" + tempStore,
+                "PRAGMA busy_timeout=" + busyTimeoutMs
+        );
+    }
+
+    static SqliteTuningProfile fromConfig() {
+        String name = ConfigManager.getFeatureString("database_tuning_profile", "balanced");
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Simpleskills.LOGGER.warn("Unknown database_tuning_profile '{}', using balanced.", name);
+            return BALANCED;
+        }
+    }
+}
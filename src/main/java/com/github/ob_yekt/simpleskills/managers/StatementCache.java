@@ -0,0 +1,48 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiled statements for one connection, keyed by SQL text, so SQLite does not re-parse and re-plan hot
+ * queries on every call. Callers must not close the returned statements, only the result sets they produce;
+ * the owner clears the cache before closing or replacing the connection. Not thread-safe.
+ */
+final class StatementCache {
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Closes and forgets the statement for the SQL, for statements that will not be used again.
+     */
+    void evict(String sql) throws SQLException {
+        PreparedStatement statement = statements.remove(sql);
+        if (statement != null) {
+            statement.close();
+        }
+    }
+
+    void clear() {
+        for (PreparedStatement statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                Simpleskills.LOGGER.debug("Failed to close cached statement: {}", e.getMessage());
+            }
+        }
+        statements.clear();
+    }
+}
@@ -0,0 +1,285 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+import com.github.ob_yekt.simpleskills.Skills;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.DatabaseException;
+import com.github.ob_yekt.simpleskills.managers.DatabaseManager.SkillData;
+import com.github.ob_yekt.simpleskills.managers.SkillStore.PlayerName;
+import com.github.ob_yekt.simpleskills.managers.SkillStore.Profile;
+import com.github.ob_yekt.simpleskills.managers.SkillStore.XpBucket;
+import org.sqlite.SQLiteConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Reads an unsharded simpleskills.db for {@link ShardedSkillStore}'s one-time copy through a single read-only
+ * connection, so the old database is neither upgraded nor written to and no writer, journal or backup threads
+ * start for it. Copes with every state the file can be left in: profiles in the compact or the wide layout,
+ * rows still waiting in the pre-compact player_skills table, databases from before player_current_name, and
+ * skill saves left in simpleskills.journal that were never folded into the tables.
+ */
+final class UnshardedDatabaseReader implements AutoCloseable {
+    private final Connection connection;
+    private final Set<String> tables = new HashSet<>();
+    private final Map<Integer, String> skillIds = new HashMap<>();
+    // Unfolded journal saves per player, applied over the stored skills and removed once a profile used them
+    private final Map<String, Map<String, SkillData>> journaled = new HashMap<>();
+
+    UnshardedDatabaseReader(Path dataDirectory) throws SQLException, IOException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        connection = DriverManager.getConnection("jdbc:sqlite:" + dataDirectory.resolve(SqliteSkillStore.DATABASE_NAME), config.toProperties());
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+                int version = rs.next() ? rs.getInt(1) : 0;
+                if (version > SchemaMigrations.latestVersion()) {
+                    throw new DatabaseException("Database schema version " + version + " is not supported", null);
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table'")) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+            if (tables.contains("skill_ids")) {
+                try (ResultSet rs = stmt.executeQuery("SELECT skill, skill_id FROM skill_ids")) {
+                    while (rs.next()) {
+                        skillIds.put(rs.getInt(1), rs.getString(2));
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        Path journalPath = dataDirectory.resolve(SqliteSkillStore.JOURNAL_NAME);
+        if (Files.exists(journalPath)) {
+            long[] records = {0};
+            XpJournal.replay(journalPath, (player, skill, xp, level, timestamp) -> {
+                String skillId = skillIds.get(skill);
+                if (skillId != null) {
+                    journaled.computeIfAbsent(player.toString(), uuid -> new HashMap<>()).put(skillId, new SkillData(xp, level));
+                    records[0]++;
+                }
+            });
+            Simpleskills.LOGGER.info("Read {} unfolded skill saves from {}.", records[0], journalPath);
+        }
+    }
+
+    /**
+     * Streams every player's profile, with saves from the journal applied.
+     */
+    void forEachProfile(BiConsumer<String, Profile> action) throws SQLException {
+        if (tables.contains("player_profiles")) {
+            forEachWideProfile(action);
+        }
+        if (tables.contains("players") || tables.contains("player_skills")) {
+            forEachCompactProfile(action);
+        }
+        // Players whose only saves are in the journal
+        for (Iterator<Map.Entry<String, Map<String, SkillData>>> it = journaled.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Map<String, SkillData>> entry = it.next();
+            it.remove();
+            action.accept(entry.getKey(), new Profile(entry.getValue(), 0, false, true));
+        }
+    }
+
+    private void forEachWideProfile(BiConsumer<String, Profile> action) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet result = stmt.executeQuery("SELECT * FROM player_profiles")) {
+            // Skills added after the table was created have no columns until the store opens it again
+            Set<String> columns = new HashSet<>();
+            ResultSetMetaData meta = result.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                columns.add(meta.getColumnName(i));
+            }
+            while (result.next()) {
+                UUID uuid = PlayerIds.uuidFromId(result.getBytes("player_id"));
+                if (uuid == null) {
+                    continue;
+                }
+                Map<String, SkillData> skills = new HashMap<>();
+                for (Skills skill : Skills.values()) {
+                    if (columns.contains(WideProfileSchema.xpColumn(skill))) {
+                        skills.put(skill.getId(), new SkillData(result.getInt(WideProfileSchema.xpColumn(skill)),
+                                result.getInt(WideProfileSchema.levelColumn(skill))));
+                    }
+                }
+                accept(action, uuid.toString(), skills, result.getInt("prestige"), result.getInt("is_ironman") == 1,
+                        result.getInt("is_tab_menu_visible") == 1);
+            }
+        }
+    }
+
+    /**
+     * Streams players, player_skills_v2 and the legacy player_skills table in one pass ordered by player. Rows
+     * from player_skills_v2 come first and win, as they do when the store migrates the legacy rows itself.
+     */
+    private void forEachCompactProfile(BiConsumer<String, Profile> action) throws SQLException {
+        boolean players = tables.contains("players");
+        String prestige = players && columnExists("players", "prestige") ? "p.prestige" : "0";
+        StringBuilder sql = new StringBuilder("SELECT player_uuid, prestige, is_ironman, is_tab_menu_visible, skill, skill_id, xp, level FROM (");
+        if (players) {
+            sql.append("SELECT p.player_uuid, ").append(prestige).append(" AS prestige, p.is_ironman, p.is_tab_menu_visible, ");
+            if (tables.contains("player_skills_v2")) {
+                sql.append("s.skill, NULL AS skill_id, s.xp, s.level, 0 AS source FROM players p "
+                        + "LEFT JOIN player_skills_v2 s ON s.player_id = " + PlayerIds.UUID_TO_BLOB_SQL.formatted("p.player_uuid"));
+            } else {
+                sql.append("NULL AS skill, NULL AS skill_id, NULL AS xp, NULL AS level, 0 AS source FROM players p");
+            }
+        }
+        if (tables.contains("player_skills")) {
+            if (players) {
+                sql.append(" UNION ALL SELECT l.player_uuid, COALESCE(").append(prestige).append(", 0), COALESCE(p.is_ironman, 0), "
+                        + "COALESCE(p.is_tab_menu_visible, 1), NULL, l.skill_id, COALESCE(l.xp, 0), COALESCE(l.level, 1), 1 "
+                        + "FROM player_skills l LEFT JOIN players p ON p.player_uuid = l.player_uuid");
+            } else {
+                sql.append("SELECT player_uuid, 0, 0, 1, NULL, skill_id, COALESCE(xp, 0), COALESCE(level, 1), 1 FROM player_skills");
+            }
+        }
+        sql.append(") ORDER BY player_uuid, source");
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet result = stmt.executeQuery(sql.toString())) {
+            String current = null;
+            Map<String, SkillData> skills = null;
+            int prestigeValue = 0;
+            boolean ironman = false;
+            boolean tabMenuVisible = true;
+            while (result.next()) {
+                String playerUuid = result.getString("player_uuid");
+                if (!playerUuid.equals(current)) {
+                    if (current != null) {
+                        accept(action, current, skills, prestigeValue, ironman, tabMenuVisible);
+                    }
+                    current = playerUuid;
+                    skills = new HashMap<>();
+                    prestigeValue = result.getInt("prestige");
+                    ironman = result.getInt("is_ironman") == 1;
+                    tabMenuVisible = result.getInt("is_tab_menu_visible") == 1;
+                }
+                int skill = result.getInt("skill");
+                String skillId = result.wasNull() ? result.getString("skill_id") : skillIds.get(skill);
+                if (skillId != null) {
+                    skills.putIfAbsent(skillId, new SkillData(result.getInt("xp"), result.getInt("level")));
+                }
+            }
+            if (current != null) {
+                accept(action, current, skills, prestigeValue, ironman, tabMenuVisible);
+            }
+        }
+    }
+
+    private void accept(BiConsumer<String, Profile> action, String playerUuid, Map<String, SkillData> skills, int prestige,
+                        boolean ironman, boolean tabMenuVisible) {
+        UUID uuid = PlayerIds.parseUuid(playerUuid);
+        if (uuid == null) {
+            return; // Not a real player, like in the store's own full-table iteration
+        }
+        Map<String, SkillData> unfolded = journaled.remove(uuid.toString());
+        if (unfolded != null) {
+            skills.putAll(unfolded);
+        }
+        action.accept(uuid.toString(), new Profile(skills, prestige, ironman, tabMenuVisible));
+    }
+
+    /**
+     * Streams every player's current name, falling back to the newest entry of the name history.
+     */
+    void forEachPlayerName(Consumer<PlayerName> action) throws SQLException {
+        String sql;
+        if (tables.contains("player_current_name")) {
+            sql = "SELECT uuid, name, last_seen FROM player_current_name";
+        } else if (tables.contains("player_names")) {
+            sql = "SELECT uuid, name, MAX(last_seen) AS last_seen FROM player_names GROUP BY uuid";
+        } else {
+            return;
+        }
+        try (Statement stmt = connection.createStatement();
+             ResultSet result = stmt.executeQuery(sql)) {
+            while (result.next()) {
+                action.accept(new PlayerName(result.getString("uuid"), result.getString("name"), result.getLong("last_seen")));
+            }
+        }
+    }
+
+    /**
+     * Streams the hourly or daily XP buckets, followed by events the last rollup had not reached yet, summed
+     * into the same buckets. Raw events that were already rolled up are only kept for pruning and are skipped.
+     */
+    void forEachXpBucket(boolean daily, BiConsumer<String, XpBucket> action) throws SQLException {
+        String table = daily ? "xp_daily" : "xp_hourly";
+        String column = daily ? "day" : "hour";
+        if (tables.contains(table)) {
+            try (Statement stmt = connection.createStatement();
+                 ResultSet result = stmt.executeQuery("SELECT player_id, skill, " + column + ", xp, gains FROM " + table)) {
+                streamBuckets(result, action);
+            }
+        }
+        if (!tables.contains("xp_events")) {
+            return;
+        }
+        long watermark = 0;
+        if (tables.contains("xp_rollup_state")) {
+            try (Statement stmt = connection.createStatement();
+                 ResultSet result = stmt.executeQuery(XpHistory.SELECT_WATERMARK_SQL)) {
+                watermark = result.next() ? result.getLong(1) : 0;
+            }
+        }
+        int bucketSeconds = daily ? XpHistory.DAY_SECONDS : XpHistory.HOUR_SECONDS;
+        String sql = """
+            SELECT player_id, skill, created_at / %1$d * %1$d, SUM(xp), SUM(gains)
+            FROM xp_events WHERE id > ?
+            GROUP BY player_id, skill, created_at / %1$d""".formatted(bucketSeconds);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, watermark);
+            try (ResultSet result = statement.executeQuery()) {
+                streamBuckets(result, action);
+            }
+        }
+    }
+
+    private void streamBuckets(ResultSet result, BiConsumer<String, XpBucket> action) throws SQLException {
+        while (result.next()) {
+            UUID uuid = PlayerIds.uuidFromId(result.getBytes(1));
+            String skillId = skillIds.get(result.getInt(2));
+            if (uuid != null && skillId != null) {
+                action.accept(uuid.toString(), new XpBucket(skillId, result.getLong(3), result.getLong(4), result.getLong(5)));
+            }
+        }
+    }
+
+    private boolean columnExists(String table, String column) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+}
@@ -0,0 +1,199 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Skills;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * SQL for the wide storage layout used by {@link SqliteSkillStore}: one player_profiles row per player
+ * holding the XP and level of every skill next to the prestige, Ironman and tab menu flags, so a whole
+ * profile is read with one lookup and saved with one upsert.
+ */
+final class WideProfileSchema {
+    private static final Map<String, Skills> SKILLS_BY_ID = new HashMap<>();
+    // Statements used on every save are built once
+    private static final Map<Skills, String> UPSERT_SKILL_SQL = new EnumMap<>(Skills.class);
+    private static final Map<String, String> UPSERT_FLAG_SQL = new HashMap<>();
+    private static final String UPSERT_ALL_SKILLS_SQL;
+    private static final String SELECT_PROFILE_SQL;
+    private static final String SELECT_RECENT_PROFILES_SQL;
+
+    static {
+        List<String> allSkillColumns = new ArrayList<>();
+        StringJoiner selectColumns = new StringJoiner(", ", "SELECT prestige, is_ironman, is_tab_menu_visible, ", " FROM player_profiles WHERE player_id = ?");
+        StringJoiner recentColumns = new StringJoiner(", ", "SELECT p.player_id, p.prestige, p.is_ironman, p.is_tab_menu_visible, ",
+                " FROM player_profiles p LEFT JOIN player_current_name n ON n.uuid = " + uuidText("p.player_id")
+                        + " ORDER BY n.last_seen DESC LIMIT ?");
+        for (Skills skill : Skills.values()) {
+            SKILLS_BY_ID.put(skill.getId(), skill);
+            UPSERT_SKILL_SQL.put(skill, upsertSql(List.of(xpColumn(skill), levelColumn(skill))));
+            allSkillColumns.add(xpColumn(skill));
+            allSkillColumns.add(levelColumn(skill));
+            selectColumns.add(xpColumn(skill)).add(levelColumn(skill));
+            recentColumns.add("p." + xpColumn(skill)).add("p." + levelColumn(skill));
+        }
+        for (String flag : List.of("prestige", "is_ironman", "is_tab_menu_visible")) {
+            UPSERT_FLAG_SQL.put(flag, upsertSql(List.of(flag)));
+        }
+        UPSERT_ALL_SKILLS_SQL = upsertSql(allSkillColumns);
+        SELECT_PROFILE_SQL = selectColumns.toString();
+        SELECT_RECENT_PROFILES_SQL = recentColumns.toString();
+    }
+
+    private WideProfileSchema() {} // Utility class
+
+    static Skills skillFor(String skillId) {
+        return SKILLS_BY_ID.get(skillId);
+    }
+
+    static String xpColumn(Skills skill) {
+        return skill.getId().toLowerCase(Locale.ROOT) + "_xp";
+    }
+
+    static String levelColumn(Skills skill) {
+        return skill.getId().toLowerCase(Locale.ROOT) + "_level";
+    }
+
+    /**
+     * Formats a 16-byte player_id as the dashed lowercase UUID text the other tables use.
+     */
+    static String uuidText(String expression) {
+        String hex = "hex(" + expression + ")";
+        return "lower(substr(%1$s, 1, 8) || '-' || substr(%1$s, 9, 4) || '-' || substr(%1$s, 13, 4) || '-' || substr(%1$s, 17, 4) || '-' || substr(%1$s, 21))"
+                .formatted(hex);
+    }
+
+    static String createTableSql() {
+        StringBuilder sql = new StringBuilder("""
+        CREATE TABLE IF NOT EXISTS player_profiles (
+            player_id BLOB PRIMARY KEY,
+            prestige INTEGER NOT NULL DEFAULT 0,
+            is_ironman INTEGER NOT NULL DEFAULT 0,
+            is_tab_menu_visible INTEGER NOT NULL DEFAULT 1""");
+        for (Skills skill : Skills.values()) {
+            sql.append(",\n    ").append(xpColumn(skill)).append(" INTEGER NOT NULL DEFAULT 0");
+            sql.append(",\n    ").append(levelColumn(skill)).append(" INTEGER NOT NULL DEFAULT 1");
+        }
+        return sql.append("\n) WITHOUT ROWID").toString();
+    }
+
+    /**
+     * Returns ALTER statements for skill columns missing from an existing table, e.g. after a skill was added.
+     */
+    static List<String> addMissingColumnsSql(List<String> existingColumns) {
+        List<String> statements = new ArrayList<>();
+        for (Skills skill : Skills.values()) {
+            if (!existingColumns.contains(xpColumn(skill))) {
+                statements.add("ALTER TABLE player_profiles ADD COLUMN " + xpColumn(skill) + " INTEGER NOT NULL DEFAULT 0");
+            }
+            if (!existingColumns.contains(levelColumn(skill))) {
+                statements.add("ALTER TABLE player_profiles ADD COLUMN " + levelColumn(skill) + " INTEGER NOT NULL DEFAULT 1");
+            }
+        }
+        return statements;
+    }
+
+    static String selectProfileSql() {
+        return SELECT_PROFILE_SQL;
+    }
+
+    /**
+     * Every profile with its player_id, most recently seen first; binds the limit (-1 for all).
+     */
+    static String selectRecentProfilesSql() {
+        return SELECT_RECENT_PROFILES_SQL;
+    }
+
+    /**
+     * Upsert of a single skill; binds player_id, xp, level.
+     */
+    static String upsertSkillSql(Skills skill) {
+        return UPSERT_SKILL_SQL.get(skill);
+    }
+
+    /**
+     * Upsert of every skill column; binds player_id, then xp and level for each skill in {@link Skills} order.
+     */
+    static String upsertAllSkillsSql() {
+        return UPSERT_ALL_SKILLS_SQL;
+    }
+
+    /**
+     * Upsert of one flag column (prestige, is_ironman or is_tab_menu_visible); binds player_id, value.
+     */
+    static String upsertFlagSql(String column) {
+        return UPSERT_FLAG_SQL.get(column);
+    }
+
+    private static String upsertSql(List<String> columns) {
+        StringJoiner names = new StringJoiner(", ");
+        StringJoiner values = new StringJoiner(", ");
+        StringJoiner updates = new StringJoiner(", ");
+        for (String column : columns) {
+            names.add(column);
+            values.add("?");
+            updates.add(column + " = excluded." + column);
+        }
+        return "INSERT INTO player_profiles (player_id, " + names + ") VALUES (?, " + values
+                + ") ON CONFLICT(player_id) DO UPDATE SET " + updates;
+    }
+
+    /**
+     * Sum of every level column, with each column name prefixed by {@code prefix} (e.g. "NEW." in a trigger).
+     */
+    static String totalLevelExpression(String prefix) {
+        StringJoiner sum = new StringJoiner(" + ", "(", ")");
+        for (Skills skill : Skills.values()) {
+            sum.add(prefix + levelColumn(skill));
+        }
+        return sum.toString();
+    }
+
+    /**
+     * Statements that create a player_profiles row for every player known to the compact layout, carrying over
+     * the flags from players. Skill values follow with {@link #copySkillFromCompactSql}.
+     */
+    static List<String> fromCompactSql(String uuidToBlob) {
+        List<String> statements = new ArrayList<>();
+        statements.add("""
+        INSERT OR REPLACE INTO player_profiles (player_id, prestige, is_ironman, is_tab_menu_visible)
+        SELECT %1$s, COALESCE(prestige, 0), COALESCE(is_ironman, 0), COALESCE(is_tab_menu_visible, 1)
+        FROM players
+        WHERE length(%1$s) = 16""".formatted(uuidToBlob.formatted("player_uuid")));
+        statements.add("INSERT OR IGNORE INTO player_profiles (player_id) SELECT DISTINCT player_id FROM player_skills_v2");
+        return statements;
+    }
+
+    /**
+     * Copies one skill from player_skills_v2 into its columns; binds the skill ordinal.
+     */
+    static String copySkillFromCompactSql(Skills skill) {
+        return """
+        UPDATE player_profiles SET %1$s = s.xp, %2$s = s.level
+        FROM player_skills_v2 s
+        WHERE s.player_id = player_profiles.player_id AND s.skill = ?""".formatted(xpColumn(skill), levelColumn(skill));
+    }
+
+    static String copyFlagsToCompactSql() {
+        return """
+        INSERT OR REPLACE INTO players (player_uuid, is_ironman, is_tab_menu_visible, prestige)
+        SELECT %s, is_ironman, is_tab_menu_visible, prestige
+        FROM player_profiles""".formatted(uuidText("player_id"));
+    }
+
+    /**
+     * Copies one skill's columns into player_skills_v2; binds the skill ordinal.
+     */
+    static String copySkillToCompactSql(Skills skill) {
+        return """
+        INSERT OR REPLACE INTO player_skills_v2 (player_id, skill, xp, level)
+        SELECT player_id, ?, %s, %s
+        FROM player_profiles""".formatted(xpColumn(skill), levelColumn(skill));
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalescing write-behind buffer used by {@link SqliteSkillStore}.
+ * Repeated writes to the same key between flushes collapse into the latest value, and a single
+ * daemon writer thread runs the flush task on a fixed interval or as soon as the batch size is reached.
+ */
+class WriteBehindQueue<K, V> {
+    private final Map<K, V> pending = new LinkedHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final ScheduledExecutorService writer;
+    private volatile Thread writerThread;
+    private final Runnable flushTask;
+    private final int batchSize;
+
+    WriteBehindQueue(String threadName, long flushIntervalMs, int batchSize, Runnable flushTask) {
+        this.flushTask = flushTask;
+        this.batchSize = Math.max(1, batchSize);
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            writerThread = thread;
+            return thread;
+        });
+        long interval = Math.max(1, flushIntervalMs);
+        writer.scheduleWithFixedDelay(this::runFlush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues a value, replacing any pending value for the same key.
+     * The entry moves to the end so flush order always follows the latest write.
+     */
+    void put(K key, V value) {
+        int size;
+        synchronized (pending) {
+            pending.remove(key);
+            pending.put(key, value);
+            size = pending.size();
+        }
+        if (size >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Runs a flush on the writer thread as soon as possible, unless one is already on its way.
+     */
+    void requestFlush() {
+        if (!writer.isShutdown() && flushRequested.compareAndSet(false, true)) {
+            writer.execute(this::runFlush);
+        }
+    }
+
+    /**
+     * Runs a task on the writer thread, behind any flush already queued there, and completes once it has run.
+     * Runs it on the calling thread instead if that is the writer thread or the writer has been shut down.
+     */
+    CompletableFuture<Void> runOnWriter(Runnable task) {
+        if (Thread.currentThread() == writerThread) {
+            task.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture.runAsync(task, writer);
+        } catch (RejectedExecutionException e) {
+            task.run();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Removes and returns everything queued so far, in write order.
+     */
+    Map<K, V> drain() {
+        synchronized (pending) {
+            Map<K, V> batch = new LinkedHashMap<>(pending);
+            pending.clear();
+            return batch;
+        }
+    }
+
+    /**
+     * Puts back entries from a failed flush ahead of newer writes, unless they were superseded meanwhile.
+     * The flush task keeps any retry count in the values, so it can isolate a write that keeps failing
+     * instead of failing every later flush with it.
+     */
+    void requeue(Map<K, V> failed) {
+        synchronized (pending) {
+            Map<K, V> merged = new LinkedHashMap<>();
+            for (Map.Entry<K, V> entry : failed.entrySet()) {
+                if (!pending.containsKey(entry.getKey())) {
+                    merged.put(entry.getKey(), entry.getValue());
+                }
+            }
+            merged.putAll(pending);
+            pending.clear();
+            pending.putAll(merged);
+        }
+    }
+
+    private void runFlush() {
+        flushRequested.set(false);
+        try {
+            flushTask.run();
+        } catch (RuntimeException e) {
+            Simpleskills.LOGGER.error("Write-behind flush failed; pending writes will be retried: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the writer thread and drains whatever is still pending on the calling thread.
+     */
+    void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                Simpleskills.LOGGER.warn("Write-behind writer did not stop in time; draining on the calling thread.");
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flushTask.run();
+        } catch (RuntimeException e) {
+            Simpleskills.LOGGER.error("Failed to drain pending writes on shutdown: {}", e.getMessage());
+        }
+    }
+}
@@ -1,12 +1,12 @@
 package com.github.ob_yekt.simpleskills.managers;
 
 import com.github.ob_yekt.simpleskills.Simpleskills;
-import com.github.ob_yekt.simpleskills.ui.SkillTabMenu;
 import com.github.ob_yekt.simpleskills.Skills;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.function.BiConsumer;
-import java.util.function.IntUnaryOperator;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.particles.ParticleOptions;
 import net.minecraft.core.particles.ParticleTypes;
@@ -26,6 +26,9 @@ public class XPManager {
     private static int XP_NOTIFICATION_THRESHOLD;
     private static boolean LEVEL_UP_EFFECTS_ENABLED;
     private static boolean LEVEL_UP_NOTIFICATIONS_ENABLED;
+    // One curve per Skills.ordinal(), rebuilt on reload; the client HUD reads it from the render thread
+    private static volatile XpCurve[] skillCurves;
+    private static volatile XpCurve defaultCurve;
 
     static {
         loadConfig();
@@ -47,31 +50,32 @@ public class XPManager {
             Simpleskills.LOGGER.error("Invalid input for getSkillLevel: playerUuid or skill is null");
             return 1;
         }
-        DatabaseManager db = DatabaseManager.getInstance();
-        Map<String, DatabaseManager.SkillData> skills = db.getAllSkills(playerUuid);
-        DatabaseManager.SkillData skillData = skills.get(skill.getId());
-        if (skillData != null) {
-            return skillData.level();
-        }
-        // Return default level without forcing initialization
-        return 1;
+        // Default level for skills without stored data, without forcing initialization
+        return DatabaseManager.getInstance().getSkillLevel(playerUuid, skill, 1);
     }
 
     /// IMPROVED XP-SYSTEM
 
-// Curve parameters tuned for ~45 min to level 25 (wood+stone) and exactly 20.4 hours to level 99
-    private static final double SCALING_A  = 50.751;
-    private static final double EXPONENT_P = 2.672;
-    private static final double OFFSET_K   = 0.295;
-
+    /**
+     * Total XP needed for a level on the default curve from xp_curves.json.
+     */
     public static int getExperienceForLevel(int level) {
-        if (level <= 1) return 0;
-        double base = Math.pow(1.0 + OFFSET_K, EXPONENT_P);
-        return (int) Math.floor(SCALING_A * (Math.pow((double) level + OFFSET_K, EXPONENT_P) - base));
+        return defaultCurve.experienceForLevel(level);
     }
 
     public static int getLevelForExperience(int experience) {
-        return calculateLevelForExperience(experience, XPManager::getExperienceForLevel);
+        return defaultCurve.levelForExperience(experience);
+    }
+
+    /**
+     * Total XP needed for a level in a skill, using the skill's own curve if xp_curves.json defines one.
+     */
+    public static int getExperienceForLevel(Skills skill, int level) {
+        return skillCurves[skill.ordinal()].experienceForLevel(level);
+    }
+
+    public static int getLevelForExperience(Skills skill, int experience) {
+        return skillCurves[skill.ordinal()].levelForExperience(experience);
     }
 
     /// OLD XP-SYSTEM (for migration purposes only)
@@ -80,15 +84,17 @@ public class XPManager {
     private static final double OLD_EXPONENT_P = 2.45;
     private static final double OLD_SCALING_A  = 300.0;
     private static final double OLD_FLOOR_B    = 500.0;
+    private static final XpCurve OLD_CURVE = XpCurve.of(MAX_LEVEL, level -> {
+        double L = level - 1;
+        return (int) Math.floor(OLD_SCALING_A * Math.pow(L, OLD_EXPONENT_P) + OLD_FLOOR_B * L);
+    });
 
     /**
      * Old XP calculation function - used only for migration.
      * Calculates the experience required for a given level in the old system.
      */
     public static int getExperienceForLevelOld(int level) {
-        if (level <= 1) return 0;
-        double L = level - 1;
-        return (int) Math.floor(OLD_SCALING_A * Math.pow(L, OLD_EXPONENT_P) + OLD_FLOOR_B * L);
+        return OLD_CURVE.experienceForLevel(level);
     }
 
     /**
@@ -96,40 +102,20 @@ public class XPManager {
      * Calculates the level for a given experience amount in the old system.
      */
     public static int getLevelForExperienceOld(int experience) {
-        return calculateLevelForExperience(experience, XPManager::getExperienceForLevelOld);
-    }
-
-    /**
-     * Generic binary search helper to calculate level from experience.
-     * Uses the provided XP calculation function to determine the level.
-     */
-    private static int calculateLevelForExperience(int experience, IntUnaryOperator xpCalculator) {
-        if (experience <= 0) return 1;
-        int low = 1;
-        int high = MAX_LEVEL;
-        while (low < high) {
-            int mid = (low + high + 1) >>> 1; // bias upward
-            int xpForMid = xpCalculator.applyAsInt(mid);
-            if (xpForMid <= experience) {
-                low = mid;
-            } else {
-                high = mid - 1;
-            }
-        }
-        return low;
+        return OLD_CURVE.levelForExperience(experience);
     }
 
-    // Add XP to a player's skill silently (no notifications or level-up effects)
+    // Add XP to a player's skill silently (no notifications or level-up effects); applied at the end of the tick
     public static void addXPSilent(ServerPlayer player, Skills skill, int xpToAdd) {
         updatePlayerSkill(player, skill, xpToAdd, false, false);
     }
 
-    // Add XP to a player's skill with notifications
+    // Add XP to a player's skill with notifications; applied at the end of the tick
     public static void addXPWithNotification(ServerPlayer player, Skills skill, int xpToAdd) {
         updatePlayerSkill(player, skill, xpToAdd, true, true);
     }
 
-    // Shared logic for updating player skill
+    // Shared logic for updating player skill: validates and multiplies the XP, then queues it for the end of the tick
     private static void updatePlayerSkill(ServerPlayer player, Skills skill, int xpToAdd, boolean notifyXP, boolean notifyLevelUp) {
         if (player == null || skill == null) {
             Simpleskills.LOGGER.error("Invalid input: player or skill is null");
@@ -140,29 +126,37 @@ public class XPManager {
             return;
         }
 
+        // Apply multiplier with fallback; per grant, so rounding is the same as when grants were applied one by one
+        double multiplier = DatabaseManager.getInstance().isPlayerInIronmanMode(player.getStringUUID()) ? IRONMAN_XP_MULTIPLIER : STANDARD_XP_MULTIPLIER;
+        xpToAdd = (int) (xpToAdd * multiplier);
+        if (xpToAdd > 0) {
+            XpGrantBus.add(player, skill, xpToAdd, notifyXP, notifyLevelUp);
+        }
+    }
+
+    /**
+     * Applies the XP a player gained in a skill during one tick, called by {@link XpGrantBus}. Returns
+     * whether it was saved; the caller rebuilds the tab menu once for all of the player's skills.
+     */
+    static boolean applyXP(ServerPlayer player, Skills skill, int xpToAdd, boolean notifyXP, boolean notifyLevelUp) {
         String playerUuid = player.getStringUUID();
         DatabaseManager db = DatabaseManager.getInstance();
 
-        // Apply multiplier with fallback
-        double multiplier = db.isPlayerInIronmanMode(playerUuid) ? IRONMAN_XP_MULTIPLIER : STANDARD_XP_MULTIPLIER;
-        xpToAdd = (int) (xpToAdd * multiplier);
-
         // Ensure player is initialized (checks first, avoids redundant DB ops)
         db.ensurePlayerInitialized(playerUuid);
-        Map<String, DatabaseManager.SkillData> skills = db.getAllSkills(playerUuid);
-        DatabaseManager.SkillData skillData = skills.getOrDefault(skill.getId(), new DatabaseManager.SkillData(0, 0));
-        int currentXP = skillData.xp();
-        int currentLevel = skillData.level();
-        int newXP = currentXP + xpToAdd;
-        int newLevel = getLevelForExperience(newXP);
+        int currentXP = db.getSkillXp(playerUuid, skill);
+        int currentLevel = db.getSkillLevel(playerUuid, skill, 0);
+        int newXP = (int) Math.min(Integer.MAX_VALUE, (long) currentXP + xpToAdd);
+        int newLevel = getLevelForExperience(skill, newXP);
 
         // Save to database
         try {
             db.savePlayerSkill(playerUuid, skill.getId(), newXP, newLevel);
         } catch (Exception e) {
             Simpleskills.LOGGER.error("Failed to save player skill data for UUID: {}, skill: {}", playerUuid, skill.getId(), e);
-            return;
+            return false;
         }
+        db.recordXpGain(playerUuid, skill.getId(), xpToAdd);
 
         // Send XP gain notification if enabled
         if (notifyXP) {
@@ -177,14 +171,14 @@ public class XPManager {
             triggerLevelUpEffects(player, skill, newLevel);
         }
 
-        // Update attributes and UI
+        // Update attributes
         AttributeManager.updatePlayerAttributes(player, skill, new DatabaseManager.SkillData(newXP, newLevel));
-        SkillTabMenu.updateTabMenu(player);
 
         // Notify listener
         if (onXPChangeListener != null) {
             onXPChangeListener.accept(player, skill);
         }
+        return true;
     }
 
     // Handle level-up effects
@@ -257,6 +251,43 @@ public class XPManager {
         XP_NOTIFICATION_THRESHOLD = getConfigInt(config, "xp_notification_threshold", 10);
         LEVEL_UP_EFFECTS_ENABLED = getConfigBoolean(config, "level_up_effects_enabled", true);
         LEVEL_UP_NOTIFICATIONS_ENABLED = getConfigBoolean(config, "level_up_notifications_enabled", true);
+        loadCurves(ConfigManager.getXpCurvesConfig());
+    }
+
+    /**
+     * Builds the XP curve tables. An invalid definition is logged and replaced by the default curve, so a
+     * typo in xp_curves.json never leaves a skill without one. Stored levels follow a changed curve on the
+     * player's next XP gain in that skill.
+     */
+    private static void loadCurves(JsonObject config) {
+        XpCurve base = parseCurve(config.get("default"), "default", XpCurve.defaultCurve(MAX_LEVEL));
+        XpCurve[] curves = new XpCurve[Skills.values().length];
+        Arrays.fill(curves, base);
+        JsonElement skills = config.get("skills");
+        if (skills != null && skills.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> entry : skills.getAsJsonObject().entrySet()) {
+                Skills skill = PlayerProfile.skillFor(entry.getKey());
+                if (skill == null) {
+                    Simpleskills.LOGGER.warn("Unknown skill '{}' in xp_curves.json, skipping", entry.getKey());
+                    continue;
+                }
+                curves[skill.ordinal()] = parseCurve(entry.getValue(), entry.getKey(), base);
+            }
+        }
+        defaultCurve = base;
+        skillCurves = curves;
+    }
+
+    private static XpCurve parseCurve(JsonElement definition, String name, XpCurve fallback) {
+        if (definition == null || !definition.isJsonObject()) {
+            return fallback;
+        }
+        try {
+            return XpCurve.fromJson(definition.getAsJsonObject(), MAX_LEVEL);
+        } catch (RuntimeException e) {
+            Simpleskills.LOGGER.error("Invalid XP curve '{}' in xp_curves.json, using the default: {}", name, e.getMessage());
+            return fallback;
+        }
     }
 
     public static void reloadConfig() {
@@ -0,0 +1,147 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Locale;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * An XP curve, precomputed into a table of the total XP needed for each level so level lookups are a
+ * binary search over an int array and XP lookups a single array load. Built once when the config loads.
+ * <p>
+ * Curves come from xp_curves.json: {"type": "power"} uses scaling * ((level + offset)^exponent - (1 + offset)^exponent),
+ * and {"type": "table"} takes "thresholds", the total XP for levels 2 up to the max level in increasing order.
+ */
+public final class XpCurve {
+    // Curve parameters tuned for ~45 min to level 25 (wood+stone) and exactly 20.4 hours to level 99
+    static final double DEFAULT_SCALING = 50.751;
+    static final double DEFAULT_EXPONENT = 2.672;
+    static final double DEFAULT_OFFSET = 0.295;
+
+    // thresholds[level] is the total XP needed for that level, up to maxLevel + 1 so "XP to next level" works at maxLevel - 1
+    private final int[] thresholds;
+    private final int maxLevel;
+
+    private XpCurve(int[] thresholds, int maxLevel) {
+        this.thresholds = thresholds;
+        this.maxLevel = maxLevel;
+    }
+
+    /**
+     * Tabulates a formula giving the total XP for a level. Levels 0 and 1 always need no XP.
+     */
+    static XpCurve of(int maxLevel, IntUnaryOperator formula) {
+        int[] thresholds = new int[maxLevel + 2];
+        for (int level = 2; level < thresholds.length; level++) {
+            thresholds[level] = formula.applyAsInt(level);
+        }
+        return new XpCurve(thresholds, maxLevel);
+    }
+
+    /**
+     * Tabulates scaling * ((level + offset)^exponent - (1 + offset)^exponent). Throws IllegalArgumentException
+     * if the parameters don't give every level, up to the one after the max, more XP than the level before
+     * (a negative scaling or exponent, an offset below -1, or a curve that overflows an int).
+     */
+    static XpCurve power(int maxLevel, double scaling, double exponent, double offset) {
+        double base = Math.pow(1.0 + offset, exponent);
+        XpCurve curve = of(maxLevel, level -> (int) Math.min(Integer.MAX_VALUE,
+                Math.floor(scaling * (Math.pow((double) level + offset, exponent) - base))));
+        checkIncreasing(curve.thresholds, curve.thresholds.length - 1);
+        return curve;
+    }
+
+    static XpCurve defaultCurve(int maxLevel) {
+        return power(maxLevel, DEFAULT_SCALING, DEFAULT_EXPONENT, DEFAULT_OFFSET);
+    }
+
+    /**
+     * Uses explicit totals for levels 2 to maxLevel. The level after the max is extrapolated from the last step.
+     */
+    static XpCurve table(int maxLevel, int[] levelThresholds) {
+        if (levelThresholds.length != maxLevel - 1) {
+            throw new IllegalArgumentException("expected " + (maxLevel - 1) + " thresholds (levels 2 to " + maxLevel
+                    + "), got " + levelThresholds.length);
+        }
+        int[] thresholds = new int[maxLevel + 2];
+        System.arraycopy(levelThresholds, 0, thresholds, 2, levelThresholds.length);
+        checkIncreasing(thresholds, maxLevel);
+        long step = (long) thresholds[maxLevel] - thresholds[maxLevel - 1];
+        thresholds[maxLevel + 1] = (int) Math.min(Integer.MAX_VALUE, thresholds[maxLevel] + step);
+        return new XpCurve(thresholds, maxLevel);
+    }
+
+    /**
+     * Checks that levels 2 to lastLevel need a positive total that grows with every level.
+     */
+    private static void checkIncreasing(int[] thresholds, int lastLevel) {
+        for (int level = 2; level <= lastLevel; level++) {
+            if (thresholds[level] <= 0) {
+                throw new IllegalArgumentException("threshold for level " + level + " must be positive, got " + thresholds[level]);
+            }
+            if (thresholds[level] <= thresholds[level - 1]) {
+                throw new IllegalArgumentException("threshold for level " + level + " must be greater than for level " + (level - 1)
+                        + " (" + thresholds[level] + " <= " + thresholds[level - 1] + ")");
+            }
+        }
+    }
+
+    /**
+     * Builds a curve from its xp_curves.json definition. Throws IllegalArgumentException if it is invalid.
+     */
+    static XpCurve fromJson(JsonObject json, int maxLevel) {
+        String type = json.has("type") ? json.get("type").getAsString().trim().toLowerCase(Locale.ROOT) : "power";
+        return switch (type) {
+            case "power" -> power(maxLevel,
+                    getDouble(json, "scaling", DEFAULT_SCALING),
+                    getDouble(json, "exponent", DEFAULT_EXPONENT),
+                    getDouble(json, "offset", DEFAULT_OFFSET));
+            case "table" -> {
+                if (!json.has("thresholds") || !json.get("thresholds").isJsonArray()) {
+                    throw new IllegalArgumentException("table curve needs a \"thresholds\" array");
+                }
+                JsonArray array = json.getAsJsonArray("thresholds");
+                int[] levelThresholds = new int[array.size()];
+                for (int i = 0; i < levelThresholds.length; i++) {
+                    levelThresholds[i] = array.get(i).getAsInt();
+                }
+                yield table(maxLevel, levelThresholds);
+            }
+            default -> throw new IllegalArgumentException("unknown curve type '" + type + "'");
+        };
+    }
+
+    private static double getDouble(JsonObject json, String key, double defaultValue) {
+        JsonElement element = json.get(key);
+        return element != null && element.isJsonPrimitive() && element.getAsJsonPrimitive().isNumber()
+                ? element.getAsDouble() : defaultValue;
+    }
+
+    /**
+     * Returns the total XP needed for a level; levels past the table use its last entry.
+     */
+    public int experienceForLevel(int level) {
+        if (level <= 1) return 0;
+        return thresholds[Math.min(level, thresholds.length - 1)];
+    }
+
+    /**
+     * Returns the highest level, from 1 to the max level, whose threshold the XP reaches.
+     */
+    public int levelForExperience(int experience) {
+        if (experience <= 0) return 1;
+        int low = 1;
+        int high = maxLevel;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1; // bias upward
+            if (thresholds[mid] <= experience) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+import com.github.ob_yekt.simpleskills.Skills;
+import com.github.ob_yekt.simpleskills.ui.SkillTabMenu;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Collects the XP granted through {@link XPManager} during a server tick and applies it at the end of the
+ * tick: per player and skill one level recompute, one save and one notification, and one tab menu rebuild
+ * per player. A tick where a vein mine or an area attack grants XP dozens of times then costs as much as a
+ * single grant per player. Only used on the server thread.
+ */
+public final class XpGrantBus {
+    private static final Skills[] SKILLS = Skills.values();
+
+    // Kept across ticks so a busy server allocates nothing per grant; removed when the player leaves
+    private static final Map<UUID, PendingGrants> grantsByPlayer = new HashMap<>();
+    // Players with XP waiting for the end of this tick, in the order of their first grant
+    private static final List<PendingGrants> pending = new ArrayList<>();
+
+    private static final class PendingGrants {
+        private ServerPlayer player;
+        private final long[] xp = new long[SKILLS.length];
+        // One bit per Skills.ordinal() for skills with a grant that asked for notifications
+        private int notifyXp;
+        private int notifyLevelUp;
+        private boolean queued;
+    }
+
+    private XpGrantBus() {} // Utility class
+
+    public static void init() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> flush());
+        // Registered before the database is closed on stopping, so the last tick's grants are saved
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            flush();
+            grantsByPlayer.clear();
+        });
+    }
+
+    /**
+     * Queues XP, already multiplied, for the end of the tick. Notifications are shown if any grant for
+     * the skill in this tick asked for them.
+     */
+    static void add(ServerPlayer player, Skills skill, int xp, boolean notifyXP, boolean notifyLevelUp) {
+        PendingGrants grants = grantsByPlayer.computeIfAbsent(player.getUUID(), uuid -> new PendingGrants());
+        grants.player = player; // The latest entity, in case the player respawned this tick
+        int bit = 1 << skill.ordinal();
+        grants.xp[skill.ordinal()] += xp;
+        if (notifyXP) {
+            grants.notifyXp |= bit;
+        }
+        if (notifyLevelUp) {
+            grants.notifyLevelUp |= bit;
+        }
+        if (!grants.queued) {
+            grants.queued = true;
+            pending.add(grants);
+        }
+    }
+
+    /**
+     * Applies everything queued this tick.
+     */
+    public static void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // Indexed, since a listener may grant more XP while this runs; that is applied in the same pass
+        for (int i = 0; i < pending.size(); i++) {
+            apply(pending.get(i));
+        }
+        pending.clear();
+    }
+
+    /**
+     * Applies a leaving player's queued XP and forgets them. Call before their profile is evicted.
+     */
+    public static void playerLeft(ServerPlayer player) {
+        PendingGrants grants = grantsByPlayer.remove(player.getUUID());
+        if (grants != null && grants.queued) {
+            pending.remove(grants);
+            apply(grants);
+        }
+    }
+
+    private static void apply(PendingGrants grants) {
+        ServerPlayer player = grants.player;
+        int notifyXp = grants.notifyXp;
+        int notifyLevelUp = grants.notifyLevelUp;
+        // Reset first, so XP granted while applying is queued again instead of lost
+        grants.notifyXp = 0;
+        grants.notifyLevelUp = 0;
+        grants.queued = false;
+        boolean changed = false;
+        for (Skills skill : SKILLS) {
+            int index = skill.ordinal();
+            long xp = grants.xp[index];
+            if (xp <= 0) {
+                continue;
+            }
+            grants.xp[index] = 0;
+            int bit = 1 << index;
+            try {
+                changed |= XPManager.applyXP(player, skill, (int) Math.min(Integer.MAX_VALUE, xp),
+                        (notifyXp & bit) != 0, (notifyLevelUp & bit) != 0);
+            } catch (RuntimeException e) {
+                Simpleskills.LOGGER.error("Failed to apply {} XP in {} for player UUID: {}", xp, skill.getId(), player.getStringUUID(), e);
+            }
+        }
+        if (changed) {
+            SkillTabMenu.updateTabMenu(player);
+        }
+    }
+}
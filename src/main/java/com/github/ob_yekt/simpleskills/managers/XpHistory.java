@@ -0,0 +1,167 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * XP history for {@link SqliteSkillStore}. Gains are summed in memory per player, skill and second and
+ * inserted into xp_events in one batch per flush. A rollup folds new events into the hourly and daily
+ * buckets of xp_hourly and xp_daily, keeping track of the last event ID it has seen, and raw events older
+ * than the retention are then deleted. History queries only read the buckets.
+ */
+final class XpHistory {
+    static final int HOUR_SECONDS = 3600;
+    static final int DAY_SECONDS = 86400;
+    // Bounds the buffer while the database is unreachable; further gains are dropped and counted
+    private static final int MAX_PENDING = 100_000;
+
+    static final String INSERT_EVENT_SQL = "INSERT INTO xp_events (player_id, skill, created_at, xp, gains) VALUES (?, ?, ?, ?, ?)";
+    static final String SELECT_WATERMARK_SQL = "SELECT value FROM xp_rollup_state WHERE name = 'events'";
+    static final String SAVE_WATERMARK_SQL = """
+        INSERT INTO xp_rollup_state (name, value) VALUES ('events', ?)
+        ON CONFLICT(name) DO UPDATE SET value = excluded.value""";
+    static final String SELECT_LAST_EVENT_SQL = "SELECT MAX(id) FROM xp_events";
+    // Only rolled-up events are deleted, so a rollup that failed never loses data
+    static final String PRUNE_EVENTS_SQL = "DELETE FROM xp_events WHERE id <= ? AND created_at < ?";
+    static final String PRUNE_HOURLY_SQL = "DELETE FROM xp_hourly WHERE hour < ?";
+
+    record EventKey(String playerUuid, String skillId, long second) {}
+
+    // Summed xp and number of gains per key, waiting for the next flush
+    private Map<EventKey, long[]> pending = new HashMap<>();
+    private long dropped;
+
+    static List<String> createTablesSql() {
+        // AUTOINCREMENT keeps IDs increasing after pruning, which the rollup watermark relies on
+        return List.of("""
+        CREATE TABLE IF NOT EXISTS xp_events (
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            player_id BLOB NOT NULL,
+            skill INTEGER NOT NULL,
+            created_at INTEGER NOT NULL,
+            xp INTEGER NOT NULL,
+            gains INTEGER NOT NULL
+        )
+    """, "CREATE INDEX IF NOT EXISTS xp_events_created_at ON xp_events (created_at)", """
+        CREATE TABLE IF NOT EXISTS xp_hourly (
+            player_id BLOB NOT NULL,
+            skill INTEGER NOT NULL,
+            hour INTEGER NOT NULL,
+            xp INTEGER NOT NULL,
+            gains INTEGER NOT NULL,
+            PRIMARY KEY (player_id, hour, skill)
+        ) WITHOUT ROWID
+    """, "CREATE INDEX IF NOT EXISTS xp_hourly_hour ON xp_hourly (hour)", """
+        CREATE TABLE IF NOT EXISTS xp_daily (
+            player_id BLOB NOT NULL,
+            skill INTEGER NOT NULL,
+            day INTEGER NOT NULL,
+            xp INTEGER NOT NULL,
+            gains INTEGER NOT NULL,
+            PRIMARY KEY (player_id, day, skill)
+        ) WITHOUT ROWID
+    """, """
+        CREATE TABLE IF NOT EXISTS xp_rollup_state (
+            name TEXT PRIMARY KEY,
+            value INTEGER NOT NULL
+        )
+    """);
+    }
+
+    /**
+     * Adds the events with IDs in (from, to] to the buckets of the given table. Binds from and to.
+     */
+    static String rollupSql(boolean daily) {
+        String table = daily ? "xp_daily" : "xp_hourly";
+        String column = daily ? "day" : "hour";
+        int bucketSeconds = daily ? DAY_SECONDS : HOUR_SECONDS;
+        return """
+        INSERT INTO %1$s (player_id, skill, %2$s, xp, gains)
+        SELECT player_id, skill, created_at / %3$d * %3$d, SUM(xp), SUM(gains)
+        FROM xp_events WHERE id > ? AND id <= ?
+        GROUP BY player_id, skill, created_at / %3$d
+        ON CONFLICT(player_id, %2$s, skill) DO UPDATE SET xp = %1$s.xp + excluded.xp, gains = %1$s.gains + excluded.gains"""
+                .formatted(table, column, bucketSeconds);
+    }
+
+    /**
+     * Empties the hourly or daily table.
+     */
+    static String clearBucketsSql(boolean daily) {
+        return "DELETE FROM " + (daily ? "xp_daily" : "xp_hourly");
+    }
+
+    /**
+     * Adds one bucket copied from another database to the given table. Binds player_id, skill, start, xp and gains.
+     */
+    static String importBucketSql(boolean daily) {
+        String table = daily ? "xp_daily" : "xp_hourly";
+        String column = daily ? "day" : "hour";
+        return """
+        INSERT INTO %1$s (player_id, skill, %2$s, xp, gains) VALUES (?, ?, ?, ?, ?)
+        ON CONFLICT(player_id, %2$s, skill) DO UPDATE SET xp = %1$s.xp + excluded.xp, gains = %1$s.gains + excluded.gains"""
+                .formatted(table, column);
+    }
+
+    /**
+     * A player's buckets from a start time on, oldest first. Binds player_id and the start in Unix seconds.
+     */
+    static String historySql(boolean daily) {
+        String table = daily ? "xp_daily" : "xp_hourly";
+        String column = daily ? "day" : "hour";
+        return """
+        SELECT s.skill_id, b.%2$s AS bucket, b.xp, b.gains
+        FROM %1$s b
+        JOIN skill_ids s ON s.skill = b.skill
+        WHERE b.player_id = ? AND b.%2$s >= ?
+        ORDER BY b.%2$s, s.skill_id""".formatted(table, column);
+    }
+
+    synchronized void record(String playerUuid, String skillId, int xp, long second) {
+        EventKey key = new EventKey(playerUuid, skillId, second);
+        long[] totals = pending.get(key);
+        if (totals == null) {
+            if (pending.size() >= MAX_PENDING) {
+                dropped++;
+                return;
+            }
+            totals = new long[2];
+            pending.put(key, totals);
+        }
+        totals[0] += xp;
+        totals[1]++;
+    }
+
+    synchronized Map<EventKey, long[]> drain() {
+        Map<EventKey, long[]> drained = pending;
+        pending = new HashMap<>();
+        return drained;
+    }
+
+    /**
+     * Puts back a batch that failed to commit, merging it with gains recorded since.
+     */
+    synchronized void requeue(Map<EventKey, long[]> batch) {
+        for (Map.Entry<EventKey, long[]> entry : batch.entrySet()) {
+            long[] totals = pending.get(entry.getKey());
+            if (totals != null) {
+                totals[0] += entry.getValue()[0];
+                totals[1] += entry.getValue()[1];
+            } else if (pending.size() < MAX_PENDING) {
+                pending.put(entry.getKey(), entry.getValue());
+            } else {
+                dropped += entry.getValue()[1];
+            }
+        }
+    }
+
+    /**
+     * Returns and resets the number of gains dropped because the buffer was full.
+     */
+    synchronized long takeDropped() {
+        long count = dropped;
+        dropped = 0;
+        return count;
+    }
+}
@@ -0,0 +1,257 @@
+package com.github.ob_yekt.simpleskills.managers;
+
+import com.github.ob_yekt.simpleskills.Simpleskills;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Memory-mapped, append-only journal of skill saves used by {@link SqliteSkillStore} when
+ * database_xp_journal_enabled is set. Each save is a fixed-size record written straight into the mapping,
+ * so appending costs a few memory stores; {@link SqliteSkillStore} folds the records into its tables every
+ * database_xp_journal_fold_interval_ms.
+ * <p>
+ * The mapping is only forced to disk on close. Records live in the OS page cache, so they survive the server
+ * process crashing or being killed, but not an OS crash or power loss: those lose the saves not folded yet,
+ * at most one fold interval's worth. Forcing after every append would cost an fsync per save, which is what
+ * the journal exists to avoid, and forcing on the fold schedule adds nothing, since each fold commits
+ * everything appended so far. Folded saves are as durable as database_tuning_profile makes the tables.
+ * <p>
+ * The file holds two segments. Records are appended to the active one; folding seals it and makes the
+ * other segment active, so appends never wait for a fold. Every segment carries a generation number that
+ * is mixed into each record's checksum, which makes clearing a segment a single header write and stops
+ * replay at the first torn or stale record. A generation of 0 marks a segment with nothing to replay.
+ */
+class XpJournal {
+    private static final int MAGIC = 0x534A524E; // "SJRN"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 16;
+    private static final int SEGMENT_HEADER_BYTES = 8;
+    // player UUID (16), timestamp (8), skill ordinal, xp, level and checksum (4 each)
+    static final int RECORD_BYTES = 40;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int segmentBytes;
+    private final int[] generations = new int[2];
+    private int active;
+    private int writePosition;
+    // Index of the segment waiting to be folded, or -1
+    private int sealed = -1;
+    private int nextGeneration = 1;
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(UUID player, int skill, int xp, int level, long timestamp);
+    }
+
+    XpJournal(Path file, int capacityBytes) throws IOException {
+        int requestedSegment = Math.max(RECORD_BYTES * 64, Math.min(capacityBytes, 1 << 30) / 2);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long existingSize = channel.size();
+        boolean valid = false;
+        if (existingSize >= FILE_HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            // Keep the existing segment size so a changed setting cannot cut off unfolded records
+            if (header.getInt() == MAGIC && header.getInt() == VERSION) {
+                int storedSegment = header.getInt();
+                valid = storedSegment >= RECORD_BYTES && existingSize >= FILE_HEADER_BYTES + 2L * storedSegment;
+                if (valid) {
+                    requestedSegment = storedSegment;
+                }
+            }
+        }
+        segmentBytes = requestedSegment;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER_BYTES + 2L * segmentBytes);
+        if (valid) {
+            for (int segment = 0; segment < 2; segment++) {
+                generations[segment] = buffer.getInt(segmentStart(segment));
+                nextGeneration = Math.max(nextGeneration, generations[segment] + 1);
+            }
+        } else {
+            if (existingSize > 0) {
+                Simpleskills.LOGGER.warn("Ignoring unreadable XP journal at {}.", file);
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, segmentBytes);
+            setGeneration(0, 0);
+            setGeneration(1, 0);
+        }
+        // Whatever survived from the last run is replayed oldest first: the older segment counts as sealed
+        boolean firstIsOlder = generations[1] == 0 || (generations[0] != 0 && generations[0] < generations[1]);
+        int older = firstIsOlder ? 0 : 1;
+        int newer = 1 - older;
+        if (generations[older] != 0 && generations[newer] != 0) {
+            sealed = older;
+            active = newer;
+        } else if (generations[older] != 0) {
+            active = older;
+        } else {
+            active = 0;
+            setGeneration(0, nextGeneration++);
+        }
+        writePosition = findEnd(active);
+    }
+
+    /**
+     * Appends a save. Returns false if both segments are full, in which case the caller has to fold first.
+     */
+    synchronized boolean append(UUID player, int skill, int xp, int level, long timestamp) {
+        if (writePosition + RECORD_BYTES > segmentEnd(active)) {
+            if (sealed != -1) {
+                return false;
+            }
+            activateOther();
+        }
+        int generation = generations[active];
+        long most = player.getMostSignificantBits();
+        long least = player.getLeastSignificantBits();
+        int position = writePosition;
+        buffer.putLong(position, most);
+        buffer.putLong(position + 8, least);
+        buffer.putLong(position + 16, timestamp);
+        buffer.putInt(position + 24, skill);
+        buffer.putInt(position + 28, xp);
+        buffer.putInt(position + 32, level);
+        // Written last, so a record torn by a crash fails its checksum and ends the replay
+        buffer.putInt(position + 36, checksum(generation, most, least, timestamp, skill, xp, level));
+        writePosition = position + RECORD_BYTES;
+        return true;
+    }
+
+    /**
+     * Returns the segment to fold next, sealing the active one if it holds records, or -1 if there is nothing to fold.
+     */
+    synchronized int seal() {
+        if (sealed == -1 && writePosition > segmentStart(active) + SEGMENT_HEADER_BYTES) {
+            activateOther();
+        }
+        return sealed;
+    }
+
+    /**
+     * Replays a sealed segment's records in append order. Appends go to the other segment meanwhile.
+     */
+    void forEachRecord(int segment, RecordVisitor visitor) {
+        int generation;
+        synchronized (this) {
+            generation = generations[segment];
+        }
+        visitRecords(buffer.duplicate(), segmentStart(segment), segmentEnd(segment), generation, visitor);
+    }
+
+    /**
+     * Replays every record in a journal file, oldest segment first, through a read-only mapping that leaves
+     * the file as it is. For copying another store's journal; a missing or unreadable file has no records.
+     */
+    static void replay(Path file, RecordVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            int segmentBytes = size >= FILE_HEADER_BYTES && header.getInt() == MAGIC && header.getInt() == VERSION ? header.getInt() : 0;
+            if (segmentBytes < RECORD_BYTES || size < FILE_HEADER_BYTES + 2L * segmentBytes) {
+                Simpleskills.LOGGER.warn("Ignoring unreadable XP journal at {}.", file);
+                return;
+            }
+            ByteBuffer view = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER_BYTES + 2L * segmentBytes);
+            int[] starts = {FILE_HEADER_BYTES, FILE_HEADER_BYTES + segmentBytes};
+            int[] generations = {view.getInt(starts[0]), view.getInt(starts[1])};
+            // The same order as opening the journal: the older generation is replayed first
+            int older = generations[1] == 0 || (generations[0] != 0 && generations[0] < generations[1]) ? 0 : 1;
+            for (int segment : new int[] {older, 1 - older}) {
+                visitRecords(view, starts[segment], starts[segment] + segmentBytes, generations[segment], visitor);
+            }
+        }
+    }
+
+    private static void visitRecords(ByteBuffer view, int start, int end, int generation, RecordVisitor visitor) {
+        for (int position = start + SEGMENT_HEADER_BYTES; position + RECORD_BYTES <= end; position += RECORD_BYTES) {
+            if (!isValid(view, position, generation)) {
+                break;
+            }
+            visitor.visit(new UUID(view.getLong(position), view.getLong(position + 8)), view.getInt(position + 24),
+                    view.getInt(position + 28), view.getInt(position + 32), view.getLong(position + 16));
+        }
+    }
+
+    /**
+     * Marks a sealed segment as folded, so it is neither replayed again nor kept from taking appends.
+     */
+    synchronized void release(int segment) {
+        if (segment == sealed) {
+            setGeneration(segment, 0);
+            sealed = -1;
+        }
+    }
+
+    synchronized void close() {
+        buffer.force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Simpleskills.LOGGER.error("Failed to close XP journal: {}", e.getMessage());
+        }
+    }
+
+    private void activateOther() {
+        sealed = active;
+        active = 1 - active;
+        setGeneration(active, nextGeneration++);
+        writePosition = segmentStart(active) + SEGMENT_HEADER_BYTES;
+    }
+
+    private int findEnd(int segment) {
+        int generation = generations[segment];
+        int end = segmentEnd(segment);
+        int position = segmentStart(segment) + SEGMENT_HEADER_BYTES;
+        while (position + RECORD_BYTES <= end && isValid(buffer, position, generation)) {
+            position += RECORD_BYTES;
+        }
+        return position;
+    }
+
+    private void setGeneration(int segment, int generation) {
+        generations[segment] = generation;
+        buffer.putInt(segmentStart(segment), generation);
+    }
+
+    private int segmentStart(int segment) {
+        return FILE_HEADER_BYTES + segment * segmentBytes;
+    }
+
+    private int segmentEnd(int segment) {
+        return segmentStart(segment) + segmentBytes;
+    }
+
+    private static boolean isValid(ByteBuffer view, int position, int generation) {
+        return generation != 0 && view.getInt(position + 36) == checksum(generation, view.getLong(position), view.getLong(position + 8),
+                view.getLong(position + 16), view.getInt(position + 24), view.getInt(position + 28), view.getInt(position + 32));
+    }
+
+    private static int checksum(int generation, long most, long least, long timestamp, int skill, int xp, int level) {
+        long h = generation * 0x9E3779B97F4A7C15L;
+        h = mix(h, most);
+        h = mix(h, least);
+        h = mix(h, timestamp);
+        h = mix(h, ((long) skill << 32) | (xp & 0xFFFFFFFFL));
+        h = mix(h, level);
+        int result = (int) (h ^ (h >>> 32));
+        // Never 0, so an all-zero slot is never mistaken for a record
+        return result == 0 ? 1 : result;
+    }
+
+    private static long mix(long h, long value) {
+        h = (h ^ value) * 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.ob_yekt.simpleskills.mixin;
+
+import com.mojang.authlib.GameProfile;
+import net.minecraft.server.network.ServerLoginPacketListenerImpl;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(ServerLoginPacketListenerImpl.class)
+public interface ServerLoginPacketListenerAccessor {
+    @Accessor("authenticatedProfile")
+    GameProfile getAuthenticatedProfile();
+}
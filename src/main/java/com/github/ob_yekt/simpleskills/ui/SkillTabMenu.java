@@ -95,10 +95,10 @@ public class SkillTabMenu {
                 String skillName = skillEnum.getId();
                 DatabaseManager.SkillData skill = skills.get(skillName);
                 if (skill != null) {
-                    appendSkillInfo(skillInfo, skill, skillEnum.getDisplayName());
+                    appendSkillInfo(skillInfo, skill, skillEnum);
                 } else {
                     Simpleskills.LOGGER.warn("Skill {} not found for player {}. Using default.", skillName, player.getName().getString());
-                    appendSkillInfo(skillInfo, new DatabaseManager.SkillData(0, 1), skillEnum.getDisplayName());
+                    appendSkillInfo(skillInfo, new DatabaseManager.SkillData(0, 1), skillEnum);
                 }
             }
 
@@ -116,7 +116,8 @@ public class SkillTabMenu {
         }
     }
 
-    private static void appendSkillInfo(StringBuilder skillInfo, DatabaseManager.SkillData skill, String skillDisplayName) {
+    private static void appendSkillInfo(StringBuilder skillInfo, DatabaseManager.SkillData skill, Skills skillEnum) {
+        String skillDisplayName = skillEnum.getDisplayName();
         String line;
         if (skill.level() == XPManager.getMaxLevel()) {
             line = String.format("§6⭐ §e%s §eLevel %2d §7[§f%s§7]",
@@ -125,9 +126,9 @@ public class SkillTabMenu {
                     numberFormat.format(skill.xp())
             );
         } else {
-            String progressBar = createProgressBar(skill);
-            int xpForCurrentLevel = XPManager.getExperienceForLevel(skill.level());
-            int xpToNextLevel = XPManager.getExperienceForLevel(skill.level() + 1) - xpForCurrentLevel;
+            String progressBar = createProgressBar(skill, skillEnum);
+            int xpForCurrentLevel = XPManager.getExperienceForLevel(skillEnum, skill.level());
+            int xpToNextLevel = XPManager.getExperienceForLevel(skillEnum, skill.level() + 1) - xpForCurrentLevel;
             int progressToNextLevel = skill.xp() - xpForCurrentLevel;
 
             line = String.format("§a%s §fLevel §b%2d %s §7[§f%s§7/§f%s§7]",
@@ -168,13 +169,13 @@ public class SkillTabMenu {
         return width;
     }
 
-    private static String createProgressBar(DatabaseManager.SkillData skill) {
+    private static String createProgressBar(DatabaseManager.SkillData skill, Skills skillEnum) {
         int barLength = 10;
         if (skill.level() == XPManager.getMaxLevel()) {
             return "";
         }
-        int xpForCurrentLevel = XPManager.getExperienceForLevel(skill.level());
-        int xpToNextLevel = XPManager.getExperienceForLevel(skill.level() + 1) - xpForCurrentLevel;
+        int xpForCurrentLevel = XPManager.getExperienceForLevel(skillEnum, skill.level());
+        int xpToNextLevel = XPManager.getExperienceForLevel(skillEnum, skill.level() + 1) - xpForCurrentLevel;
         int progressToNextLevel = skill.xp() - xpForCurrentLevel;
         if (xpToNextLevel <= 0) xpToNextLevel = 1;
         progressToNextLevel = Math.max(0, Math.min(progressToNextLevel, xpToNextLevel));
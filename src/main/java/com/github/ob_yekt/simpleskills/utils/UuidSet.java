@@ -0,0 +1,128 @@
+package com.github.ob_yekt.simpleskills.utils;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Open-addressing hash set of UUIDs stored as two primitive longs each, so large player
+ * histories cost 16 bytes per entry (plus slack) instead of a String and a boxed node.
+ * Not thread-safe; callers guard access themselves.
+ */
+public final class UuidSet {
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] mostBits;
+    private long[] leastBits;
+    // The all-zero UUID doubles as the empty-slot marker, so it is tracked separately
+    private boolean containsZero;
+    private int size;
+    private int resizeThreshold;
+
+    public UuidSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public UuidSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public boolean add(UUID uuid) {
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        if (most == 0L && least == 0L) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = mostBits.length - 1;
+        int slot = hash(most, least) & mask;
+        while (mostBits[slot] != 0L || leastBits[slot] != 0L) {
+            if (mostBits[slot] == most && leastBits[slot] == least) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        mostBits[slot] = most;
+        leastBits[slot] = least;
+        if (++size > resizeThreshold) {
+            rehash(mostBits.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(UUID uuid) {
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        if (most == 0L && least == 0L) {
+            return containsZero;
+        }
+        int mask = mostBits.length - 1;
+        int slot = hash(most, least) & mask;
+        while (mostBits[slot] != 0L || leastBits[slot] != 0L) {
+            if (mostBits[slot] == most && leastBits[slot] == least) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(mostBits, 0L);
+        Arrays.fill(leastBits, 0L);
+        containsZero = false;
+        size = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldMost = mostBits;
+        long[] oldLeast = leastBits;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldMost.length; i++) {
+            long most = oldMost[i];
+            long least = oldLeast[i];
+            if (most == 0L && least == 0L) {
+                continue;
+            }
+            int slot = hash(most, least) & mask;
+            while (mostBits[slot] != 0L || leastBits[slot] != 0L) {
+                slot = (slot + 1) & mask;
+            }
+            mostBits[slot] = most;
+            leastBits[slot] = least;
+        }
+    }
+
+    private void allocate(int capacity) {
+        mostBits = new long[capacity];
+        leastBits = new long[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / (double) LOAD_FACTOR) + 1;
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long most, long least) {
+        // Version-4 UUIDs are already random, but mixing keeps clustering low for other variants
+        long h = most ^ Long.rotateLeft(least, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}